@@ -0,0 +1,333 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs tournaments between computer players without JavaFX and estimates their Elo differences.
+ * Every pairing plays the same balanced openings twice, once with each color, across all cores.
+ * In a round robin every entrant meets every other; in a gauntlet the first entrant meets each of the rest.
+ * With two entrants a sequential probability ratio test can stop the match as soon as it shows
+ * the first is at least elo1 stronger (H1) or no more than elo0 stronger (H0), which is how a new engine
+ * build is checked against the last one.
+ * Usage: java Arena [--gauntlet] [--openings n] [--threads n] [--seed n] [--sprt elo0 elo1] player player...
+ * where a player is "random", "search:<milliseconds per move>" or "nodes:<nodes per move>".
+ */
+public class Arena {
+    public static final int DEFAULT_OPENINGS = 50;
+    public static final int OPENING_MOVES = 8;
+    //Openings a short search scores further from even than this are not used
+    public static final int BALANCE_MARGIN = 60;
+    public static final double SPRT_ALPHA = 0.05;
+    public static final double SPRT_BETA = 0.05;
+
+    private final List<String> entrants;
+    private final boolean gauntlet;
+    private final int threadCount;
+    private final List<GameBoard> openings;
+    private boolean sprt;
+    private double sprtElo0;
+    private double sprtElo1;
+    //Each worker thread's players, by description and then playerID
+    private final ThreadLocal<Map<String, Player[]>> players = ThreadLocal.withInitial(HashMap::new);
+    private volatile boolean stopped;
+
+    /**
+     * Makes a tournament between the described players over the given openings
+     * @param entrants player descriptions, as for SimulationRunner.createPlayer
+     * @param gauntlet true to pair only the first entrant with each of the others
+     * @param openings
+     * @param threadCount
+     */
+    public Arena(List<String> entrants, boolean gauntlet, List<GameBoard> openings, int threadCount) {
+        if (entrants.size() < 2) {
+            throw new IllegalArgumentException("A tournament needs at least two players");
+        }
+        this.entrants = entrants;
+        this.gauntlet = gauntlet;
+        this.openings = openings;
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Stops the match early once the SPRT between H0 (elo0) and H1 (elo1) reaches a decision.
+     * Only for two entrants; the Elo is the first entrant's advantage over the second.
+     * @param elo0
+     * @param elo1
+     */
+    public void setSprt(double elo0, double elo1) {
+        if (entrants.size() != 2) {
+            throw new IllegalArgumentException("SPRT needs exactly two players");
+        }
+        this.sprt = true;
+        this.sprtElo0 = elo0;
+        this.sprtElo1 = elo1;
+    }
+
+    /**
+     * Wins, draws and losses of one entrant, against one opponent or the whole field,
+     * and the Elo difference they imply
+     */
+    public static class Score {
+        //Half a game of each result is added to the counts before the SPRT, the Jeffreys prior
+        private static final double PRIOR = 0.5;
+        //The points for a win, a draw and a loss, in the order of the counts
+        private static final double[] RESULT_SCORES = {1, 0.5, 0};
+        private int wins;
+        private int draws;
+        private int losses;
+
+        void add(int result) {
+            if (result > 0) {
+                wins++;
+            } else if (result < 0) {
+                losses++;
+            } else {
+                draws++;
+            }
+        }
+
+        public int getGames() {
+            return wins + draws + losses;
+        }
+
+        /**
+         * Returns the fraction of the points won, a draw counting as half
+         * @return score
+         */
+        public double getScore() {
+            return getGames() == 0 ? 0.5 : (wins + 0.5 * draws) / getGames();
+        }
+
+        /*
+         * The variance of a single game's result around the mean score
+         */
+        private double getVariance() {
+            double score = getScore();
+            return (wins * (1 - score) * (1 - score) + draws * (0.5 - score) * (0.5 - score)
+                    + losses * score * score) / Math.max(1, getGames());
+        }
+
+        public double getElo() {
+            return elo(getScore());
+        }
+
+        /**
+         * Returns half the width of the 95% confidence interval of the Elo difference
+         * @return error
+         */
+        public double getEloError() {
+            double margin = 1.96 * Math.sqrt(getVariance() / Math.max(1, getGames()));
+            return (elo(getScore() + margin) - elo(getScore() - margin)) / 2;
+        }
+
+        /**
+         * Returns the log likelihood ratio of H1 (elo1) against H0 (elo0) for the win, draw and loss counts,
+         * the trinomial generalized SPRT. Under each hypothesis the result probabilities are the maximum
+         * likelihood ones for the observed counts among those whose expected score matches the hypothesis.
+         * The counts are regularized with the Jeffreys prior of half a game of each result, which keeps every
+         * probability positive, so a short streak of one result moves the ratio no more than the exact
+         * likelihood does: with no draws, elo0 0 and elo1 50, it takes about 22 straight wins to accept H1.
+         * @param elo0
+         * @param elo1
+         * @return LLR
+         */
+        public double getLogLikelihoodRatio(double elo0, double elo1) {
+            if (getGames() == 0) {
+                return 0;
+            }
+            double total = getGames() + RESULT_SCORES.length * PRIOR;
+            double[] frequencies = {(wins + PRIOR) / total, (draws + PRIOR) / total, (losses + PRIOR) / total};
+            double score0 = expectedScore(elo0);
+            double score1 = expectedScore(elo1);
+            double lambda0 = tilt(frequencies, score0);
+            double lambda1 = tilt(frequencies, score1);
+            double llr = 0;
+            for (int i = 0; i < RESULT_SCORES.length; i++) {
+                llr += frequencies[i] * Math.log((1 + lambda0 * (RESULT_SCORES[i] - score0))
+                        / (1 + lambda1 * (RESULT_SCORES[i] - score1)));
+            }
+            return total * llr;
+        }
+
+        /*
+         * Finds the lambda for which the probabilities frequencies[i] / (1 + lambda * (RESULT_SCORES[i] - score))
+         * have the given expected score, which makes them the maximum likelihood ones with that score.
+         * Found by bisection, since their expected score falls as lambda grows.
+         */
+        private static double tilt(double[] frequencies, double score) {
+            //Every probability stays positive strictly between these
+            double low = -1 / (1 - score);
+            double high = 1 / score;
+            for (int iteration = 0; iteration < 100; iteration++) {
+                double lambda = (low + high) / 2;
+                double excess = 0;
+                for (int i = 0; i < RESULT_SCORES.length; i++) {
+                    excess += frequencies[i] * (RESULT_SCORES[i] - score) / (1 + lambda * (RESULT_SCORES[i] - score));
+                }
+                if (excess > 0) {
+                    low = lambda;
+                } else {
+                    high = lambda;
+                }
+            }
+            return (low + high) / 2;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("+%d =%d -%d  %5.1f%%  Elo %+.0f +/- %.0f", wins, draws, losses,
+                    100 * getScore(), getElo() + 0.0, getEloError());
+        }
+    }
+
+    /*
+     * The Elo difference giving the expected score, capped short of the infinite values for 0 and 1
+     */
+    private static double elo(double score) {
+        score = Math.min(0.999, Math.max(0.001, score));
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    private static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    private Player player(String spec, int playerID) {
+        Player[] byID = players.get().computeIfAbsent(spec, s -> new Player[3]);
+        if (byID[playerID] == null) {
+            byID[playerID] = SimulationRunner.createPlayer(spec, playerID);
+        }
+        return byID[playerID];
+    }
+
+    /*
+     * Plays the opening once each way round and returns the results for the first player, +1 for a win
+     */
+    private int[] playPair(int first, int second, GameBoard opening) {
+        int[] results = new int[2];
+        for (int game = 0; game < 2 && !stopped; game++) {
+            String player1 = entrants.get(game == 0 ? first : second);
+            String player2 = entrants.get(game == 0 ? second : first);
+            GameBoard board = HeadlessGame.play(new GameBoard(opening), player(player1, 1), player(player2, 2));
+            int result = Integer.signum(board.getScore(1) - board.getScore(2));
+            results[game] = game == 0 ? result : -result;
+        }
+        return results;
+    }
+
+    /**
+     * Plays the tournament, printing a line as each pair of games finishes when running an SPRT,
+     * and returns each entrant's scores: scores[i][j] against entrant j, and scores[i][i] against the whole field
+     * @return scores
+     * @throws InterruptedException
+     * @throws ExecutionException if a game fails
+     */
+    public Score[][] run() throws InterruptedException, ExecutionException {
+        int count = entrants.size();
+        Score[][] scores = new Score[count][count];
+        for (int i = 0; i < count; i++) {
+            for (int j = 0; j < count; j++) {
+                scores[i][j] = new Score();
+            }
+        }
+        List<int[]> pairings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            for (int j = i + 1; j < count; j++) {
+                if (!gauntlet || i == 0) {
+                    pairings.add(new int[] {i, j});
+                }
+            }
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+        ExecutorCompletionService<int[]> completion = new ExecutorCompletionService<>(pool);
+        //Interleave the pairings so every one has played about as much whenever the match stops
+        for (GameBoard opening : openings) {
+            for (int[] pairing : pairings) {
+                completion.submit(() -> {
+                    int[] results = playPair(pairing[0], pairing[1], opening);
+                    return new int[] {pairing[0], pairing[1], results[0], results[1]};
+                });
+            }
+        }
+        double lowerBound = Math.log(SPRT_BETA / (1 - SPRT_ALPHA));
+        double upperBound = Math.log((1 - SPRT_BETA) / SPRT_ALPHA);
+        try {
+            for (int task = 0; task < openings.size() * pairings.size(); task++) {
+                int[] outcome = completion.take().get();
+                for (int game = 2; game < 4; game++) {
+                    scores[outcome[0]][outcome[1]].add(outcome[game]);
+                    scores[outcome[1]][outcome[0]].add(-outcome[game]);
+                    scores[outcome[0]][outcome[0]].add(outcome[game]);
+                    scores[outcome[1]][outcome[1]].add(-outcome[game]);
+                }
+                if (sprt) {
+                    double llr = scores[0][1].getLogLikelihoodRatio(sprtElo0, sprtElo1);
+                    System.out.printf("%s  LLR %.2f (%.2f, %.2f)%n", scores[0][1], llr, lowerBound, upperBound);
+                    if (llr <= lowerBound || llr >= upperBound) {
+                        System.out.println(llr >= upperBound ? "SPRT: H1 accepted" : "SPRT: H0 accepted");
+                        break;
+                    }
+                }
+            }
+        } finally {
+            stopped = true;
+            pool.shutdownNow();
+        }
+        return scores;
+    }
+
+    /**
+     * Prints every pairing's result and the standings against the field
+     * @param scores
+     */
+    public void printResults(Score[][] scores) {
+        System.out.println("Pairings:");
+        for (int i = 0; i < entrants.size(); i++) {
+            for (int j = i + 1; j < entrants.size(); j++) {
+                if (scores[i][j].getGames() > 0) {
+                    System.out.printf("  %-16s vs %-16s %s%n", entrants.get(i), entrants.get(j), scores[i][j]);
+                }
+            }
+        }
+        System.out.println("Standings against the field:");
+        for (int i = 0; i < entrants.size(); i++) {
+            System.out.printf("  %-16s %4d games  %s%n", entrants.get(i), scores[i][i].getGames(), scores[i][i]);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        boolean gauntlet = false;
+        int openingCount = DEFAULT_OPENINGS;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = PositionCorpus.DEFAULT_SEED;
+        double[] sprtBounds = null;
+        List<String> entrants = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--gauntlet": gauntlet = true; break;
+                case "--openings": openingCount = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--sprt": sprtBounds = new double[] {Double.parseDouble(args[++i]), Double.parseDouble(args[++i])}; break;
+                default: entrants.add(args[i]);
+            }
+        }
+        if (entrants.size() < 2) {
+            System.out.println("Usage: java Arena [--gauntlet] [--openings n] [--threads n] [--seed n] [--sprt elo0 elo1] player player...");
+            return;
+        }
+        List<GameBoard> openings = PositionCorpus.balancedOpenings(openingCount, OPENING_MOVES, BALANCE_MARGIN, seed);
+        Arena arena = new Arena(entrants, gauntlet, openings, threads);
+        if (sprtBounds != null) {
+            arena.setSprt(sprtBounds[0], sprtBounds[1]);
+        }
+        System.out.println((gauntlet ? "Gauntlet" : "Round robin") + " of " + entrants + " over " + openingCount
+                + " openings, each played with both colors, on " + threads + " threads");
+        arena.printResults(arena.run());
+    }
+}
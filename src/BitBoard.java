@@ -0,0 +1,251 @@
+/**
+ * A Reversi position stored as two 64-bit masks, one per player.
+ * Square (row, col) is bit row*8+col, so bit 0 is the top left corner and bit 63 the bottom right.
+ * Legal moves and flips are computed by shifting whole masks in each of the eight directions,
+ * which replaces building and scanning a list of Tiles for every line through a square.
+ */
+public class BitBoard {
+    public static final int BOARD_WIDTH=8;
+    public static final int SQUARES=64;
+    //Masks that clear the column a shift would otherwise wrap a disc into
+    private static final long NOT_FIRST_COL=0xfefefefefefefefeL;
+    private static final long NOT_LAST_COL=0x7f7f7f7f7f7f7f7fL;
+    //RAYS[direction][square] is every square from the square to the edge in that direction, not including it
+    private static final long[][] RAYS=new long[8][SQUARES];
+
+    static {
+        for (int direction = 0; direction < 8; direction++) {
+            for (int square = 0; square < SQUARES; square++) {
+                long next=shift(1L << square, direction);
+                while (next != 0) {
+                    RAYS[direction][square] |= next;
+                    next=shift(next, direction);
+                }
+            }
+        }
+    }
+
+    private long player1Discs;
+    private long player2Discs;
+
+    /**
+     * Makes an empty position
+     */
+    public BitBoard() {
+        player1Discs=0L;
+        player2Discs=0L;
+    }
+
+    /**
+     * Makes a position from the discs of each player
+     * @param player1Discs
+     * @param player2Discs
+     */
+    public BitBoard(long player1Discs, long player2Discs) {
+        this.player1Discs=player1Discs;
+        this.player2Discs=player2Discs;
+    }
+
+    /**
+     * Makes the standard starting position, with the four middle squares filled
+     * @return BitBoard
+     */
+    public static BitBoard startingPosition() {
+        return new BitBoard(bit(3, 3) | bit(4, 4), bit(3, 4) | bit(4, 3));
+    }
+
+    public static int square(int row, int col) {
+        return row*BOARD_WIDTH+col;
+    }
+
+    public static long bit(int row, int col) {
+        return 1L << square(row, col);
+    }
+
+    /**
+     * Returns the name of a square, with columns a-h and rows 1-8, so square 0 is "a1"
+     * @param square
+     * @return name
+     */
+    public static String squareName(int square) {
+        return "" + (char) ('a' + square % BOARD_WIDTH) + (char) ('1' + square / BOARD_WIDTH);
+    }
+
+    /**
+     * Returns the square with the given name, such as "d3"
+     * @param name
+     * @return square
+     */
+    public static int parseSquare(String name) {
+        int col = Character.toLowerCase(name.charAt(0)) - 'a';
+        int row = name.charAt(1) - '1';
+        if (name.length() != 2 || col < 0 || col >= BOARD_WIDTH || row < 0 || row >= BOARD_WIDTH) {
+            throw new IllegalArgumentException("Not a square: " + name);
+        }
+        return square(row, col);
+    }
+
+    public static int opponent(int playerID) {
+        return 3-playerID;
+    }
+
+    /*
+     * Moves every disc in the mask one square in the given direction, dropping discs that
+     * would leave the board. Directions 0-3 move towards higher squares and 4-7 towards lower ones.
+     */
+    private static long shift(long discs, int direction) {
+        switch (direction) {
+            case 0: return (discs << 1) & NOT_FIRST_COL;
+            case 1: return (discs << 7) & NOT_LAST_COL;
+            case 2: return discs << 8;
+            case 3: return (discs << 9) & NOT_FIRST_COL;
+            case 4: return (discs >>> 1) & NOT_LAST_COL;
+            case 5: return (discs >>> 7) & NOT_FIRST_COL;
+            case 6: return discs >>> 8;
+            default: return (discs >>> 9) & NOT_LAST_COL;
+        }
+    }
+
+    /**
+     * Returns a mask of every empty square where the owner of own would flip at least one disc
+     * @param own
+     * @param opp
+     * @return legal move mask
+     */
+    public static long legalMoves(long own, long opp) {
+        long empty=~(own | opp);
+        long moves=0L;
+        for (int direction = 0; direction < 8; direction++) {
+            long line=shift(own, direction) & opp;
+            //An outflanked line is at most six discs long
+            line |= shift(line, direction) & opp;
+            line |= shift(line, direction) & opp;
+            line |= shift(line, direction) & opp;
+            line |= shift(line, direction) & opp;
+            line |= shift(line, direction) & opp;
+            moves |= shift(line, direction) & empty;
+        }
+        return moves;
+    }
+
+    /**
+     * Returns a mask of the discs of opp that would be flipped by own playing on the given square.
+     * The square is assumed to be empty; the result is 0 when the move is not legal.
+     * @param square
+     * @param own
+     * @param opp
+     * @return flipped discs
+     */
+    public static long flips(int square, long own, long opp) {
+        long flipped=0L;
+        //Along each ray the first square that is not opp's decides: an own disc there outflanks
+        //everything before it. Rays 0-3 run to higher squares, so that is the lowest blocker.
+        for (int direction = 0; direction < 4; direction++) {
+            long ray=RAYS[direction][square];
+            long blocker=ray & ~opp;
+            blocker &= -blocker;
+            if ((blocker & own) != 0) {
+                flipped |= ray & (blocker - 1);
+            }
+        }
+        for (int direction = 4; direction < 8; direction++) {
+            long ray=RAYS[direction][square];
+            long blockers=ray & ~opp;
+            if (blockers != 0) {
+                long blocker=Long.highestOneBit(blockers);
+                if ((blocker & own) != 0) {
+                    flipped |= ray & -(blocker << 1);
+                }
+            }
+        }
+        return flipped;
+    }
+
+    public long getDiscs(int playerID) {
+        if (playerID==1) {
+            return player1Discs;
+        } else if (playerID==2) {
+            return player2Discs;
+        }
+        return 0L;
+    }
+
+    public long getEmpty() {
+        return ~(player1Discs | player2Discs);
+    }
+
+    /**
+     * Returns 0 for an empty square, otherwise the ID of the player whose disc is on it
+     * @param square
+     * @return color
+     */
+    public int getColor(int square) {
+        long mask=1L << square;
+        if ((player1Discs & mask) != 0) {
+            return 1;
+        } else if ((player2Discs & mask) != 0) {
+            return 2;
+        }
+        return 0;
+    }
+
+    public long legalMoves(int playerID) {
+        return legalMoves(getDiscs(playerID), getDiscs(opponent(playerID)));
+    }
+
+    public long flips(int square, int playerID) {
+        if (((player1Discs | player2Discs) & (1L << square)) != 0) {
+            return 0L;
+        }
+        return flips(square, getDiscs(playerID), getDiscs(opponent(playerID)));
+    }
+
+    /**
+     * Puts a disc of the given player on the square, flipping the discs it outflanks
+     * @param square
+     * @param playerID
+     * @return the flipped discs
+     */
+    public long play(int square, int playerID) {
+        long flipped=flips(square, playerID);
+        long changed=flipped | (1L << square);
+        if (playerID==1) {
+            player1Discs |= changed;
+            player2Discs &= ~flipped;
+        } else {
+            player2Discs |= changed;
+            player1Discs &= ~flipped;
+        }
+        return flipped;
+    }
+
+    /**
+     * Swaps the owner of every disc in the mask
+     * @param discs
+     */
+    public void flip(long discs) {
+        player1Discs ^= discs;
+        player2Discs ^= discs;
+    }
+
+    /**
+     * Sets a single square to the given color without flipping anything.
+     * A playerID of 0 empties the square.
+     * @param square
+     * @param playerID
+     */
+    public void setColor(int square, int playerID) {
+        long mask=1L << square;
+        player1Discs &= ~mask;
+        player2Discs &= ~mask;
+        if (playerID==1) {
+            player1Discs |= mask;
+        } else if (playerID==2) {
+            player2Discs |= mask;
+        }
+    }
+
+    public int countDiscs(int playerID) {
+        return Long.bitCount(getDiscs(playerID));
+    }
+}
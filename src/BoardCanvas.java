@@ -0,0 +1,175 @@
+import javafx.animation.AnimationTimer;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+import java.util.Arrays;
+
+/**
+ * Draws the game board onto a single Canvas instead of a grid of styled Buttons.
+ * Changes only mark squares dirty; an AnimationTimer repaints the dirty squares once per pulse,
+ * so any number of moves between two frames cost one repaint and no CSS or layout passes.
+ * Tile colors are the ones chosen in the SettingsWindow, matching the stylesheet's tile classes.
+ * The time each repaint takes is recorded, in microseconds, for comparing renderers.
+ */
+public class BoardCanvas extends Canvas {
+    private static final Color BOARD_COLOR = Color.web("#6DBC8D");
+    private static final Color GRID_COLOR = Color.GRAY;
+    private static final Color BEST_MOVE_COLOR = Color.web("#C34430");
+    private final ReversiController controller;
+    private final int width;
+    private final double squareSize;
+    //One bit per square, row*width+col, in 64-bit words as in WideBitBoard
+    private final long[] dirty;
+    private boolean anyDirty;
+    private ReversiBoard board;
+    private MoveAnalyzer.Analysis analysis;
+    private final LatencyHistogram frameTimes = new LatencyHistogram();
+    private final AnimationTimer timer;
+
+    /**
+     * Makes a canvas for a board of the given width with squares of the given size in pixels.
+     * Clicks on a square are passed to the controller like button clicks.
+     * @param controller
+     * @param width
+     * @param squareSize
+     */
+    public BoardCanvas(ReversiController controller, int width, double squareSize) {
+        super(width * squareSize, width * squareSize);
+        this.controller = controller;
+        this.width = width;
+        this.squareSize = squareSize;
+        this.dirty = new long[(width * width + 63) / 64];
+        setOnMouseClicked(event -> {
+            int row = (int) (event.getY() / squareSize);
+            int col = (int) (event.getX() / squareSize);
+            if(row >= 0 && row < width && col >= 0 && col < width) {
+                controller.buttonClicked(row, col);
+            }
+        });
+        timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                paint();
+            }
+        };
+        markAllDirty();
+        timer.start();
+    }
+
+    /**
+     * Marks the squares in the mask for repainting from the given board at the next pulse.
+     * On an 8x8 board bit row*8+col of changedSquares corresponds to (row, col); other widths
+     * always pass -1L, which repaints every square.
+     * @param board
+     * @param changedSquares
+     */
+    public void updateBoard(ReversiBoard board, long changedSquares) {
+        this.board = board;
+        if(changedSquares == -1L || width != BitBoard.BOARD_WIDTH) {
+            markAllDirty();
+        } else {
+            dirty[0] |= changedSquares;
+            anyDirty |= changedSquares != 0;
+        }
+    }
+
+    /**
+     * Shows the analysis scores on their squares from the next pulse, or none for null
+     * @param analysis
+     */
+    public void setAnalysis(MoveAnalyzer.Analysis analysis) {
+        if(this.analysis != null || analysis != null) {
+            this.analysis = analysis;
+            markAllDirty();
+        }
+    }
+
+    /**
+     * Repaints every square at the next pulse; the view calls it when the tile colors change
+     */
+    public void markAllDirty() {
+        Arrays.fill(dirty, -1L);
+        anyDirty = true;
+    }
+
+    /**
+     * Returns the time each repaint took, in microseconds
+     * @return histogram
+     */
+    public LatencyHistogram getFrameTimes() {
+        return frameTimes;
+    }
+
+    /**
+     * Stops repainting once the canvas is no longer shown
+     */
+    public void dispose() {
+        timer.stop();
+    }
+
+    private void paint() {
+        if(!anyDirty) {
+            return;
+        }
+        long start = System.nanoTime();
+        GraphicsContext graphics = getGraphicsContext2D();
+        Color player1 = tileColor(controller.getPlayersTileColor(1));
+        Color player2 = tileColor(controller.getPlayersTileColor(2));
+        int best = analysis == null ? GameBoard.PASS : analysis.getBestMove();
+        int squares = width * width;
+        for(int word = 0; word < dirty.length; word++) {
+            long bits = dirty[word];
+            dirty[word] = 0;
+            while(bits != 0) {
+                int square = word * 64 + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if(square < squares) {
+                    paintSquare(graphics, square, player1, player2, best);
+                }
+            }
+        }
+        anyDirty = false;
+        frameTimes.record((System.nanoTime() - start) / 1000);
+    }
+
+    private void paintSquare(GraphicsContext graphics, int square, Color player1, Color player2, int best) {
+        int row = square / width;
+        int col = square % width;
+        double x = col * squareSize;
+        double y = row * squareSize;
+        graphics.setFill(BOARD_COLOR);
+        graphics.fillRect(x, y, squareSize, squareSize);
+        graphics.setStroke(GRID_COLOR);
+        graphics.strokeRect(x + 0.5, y + 0.5, squareSize - 1, squareSize - 1);
+        int color = board == null ? 0 : board.getColor(row, col);
+        if(color != 0) {
+            double inset = squareSize * 0.1;
+            graphics.setFill(color == 1 ? player1 : player2);
+            graphics.fillOval(x + inset, y + inset, squareSize - 2 * inset, squareSize - 2 * inset);
+        } else if(analysis != null && width == BitBoard.BOARD_WIDTH && analysis.getScore(square) != MoveAnalyzer.NO_SCORE) {
+            graphics.setFill(square == best ? BEST_MOVE_COLOR : Color.BLACK);
+            graphics.setFont(Font.font("Arial", square == best ? FontWeight.BOLD : FontWeight.NORMAL, squareSize * 0.24));
+            graphics.setTextAlign(TextAlignment.CENTER);
+            graphics.setTextBaseline(VPos.CENTER);
+            graphics.fillText(MoveAnalyzer.Analysis.label(analysis.getScore(square)), x + squareSize / 2, y + squareSize / 2);
+        }
+    }
+
+    /*
+     * The colors of the stylesheet's tile classes, by the names the SettingsWindow offers
+     */
+    private static Color tileColor(String name) {
+        switch(name) {
+            case "white": return Color.WHITE;
+            case "blue": return Color.web("#2DE9F8");
+            case "yellow": return Color.web("#F8ED68");
+            case "red": return Color.web("#C34430");
+            case "purple": return Color.web("#A65A9E");
+            default: return Color.BLACK;
+        }
+    }
+}
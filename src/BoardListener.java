@@ -0,0 +1,16 @@
+/**
+ * Receives the changes made to a board, one call per move.
+ * A board without a listener does no notification work at all.
+ */
+public interface BoardListener {
+    /**
+     * Called once after each change to the board with a mask of the squares whose color changed.
+     * The mask only describes single squares for an 8x8 board, where bit row*8+col stands for (row, col)
+     * and a move sets the placed square plus the flipped tiles. Every other width cannot fit its squares
+     * in a long, so WideGameBoard always passes -1L, meaning any square may have changed; check the
+     * board's width before reading single bits. The new colors can be read from the board.
+     * @param board
+     * @param changedSquares
+     */
+    void boardChanged(ReversiBoard board, long changedSquares);
+}
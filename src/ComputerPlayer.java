@@ -1,7 +1,7 @@
 import java.lang.Math;
 
 public class ComputerPlayer implements Player {
-    GameBoard board;
+    ReversiBoard board;
     int playerID;
     String tileColor;
 
@@ -19,7 +19,7 @@ public class ComputerPlayer implements Player {
     }
 
     /**
-     * Places a tile on a random square, and does all resulting tile flips,
+     * Places a tile on a random legal square, and does all resulting tile flips,
      * and returns true if any moves are available,
      * returns false if there are no moves left for the player
      * @param row
@@ -28,15 +28,25 @@ public class ComputerPlayer implements Player {
      */
     @Override
     public boolean moveIfValid(int row, int col) {
-        while (board.areAvailableMoves(playerID)) {
-            int selectedRow = (int)(8 * Math.random());
-            int selectedCol = (int)(8 * Math.random());
-            if (board.isValidMove(selectedRow, selectedCol, playerID)) {
-                board.placeTile(selectedRow, selectedCol, playerID);
-                return true;
-            }
+        int square = chooseMove();
+        if (square == board.getSquareCount()) {
+            return false;
         }
-        return false;
+        board.placeTile(square / board.getWidth(), square % board.getWidth(), playerID);
+        return true;
+    }
+
+    /**
+     * Picks a random legal square without playing it
+     * @return square row*width+col, or the board's square count (GameBoard.PASS on 8x8) if there are no moves
+     */
+    @Override
+    public int chooseMove() {
+        int moves = board.countLegalMoves(playerID);
+        if (moves == 0) {
+            return board.getSquareCount();
+        }
+        return board.getLegalMove(playerID, (int)(moves * Math.random()));
     }
 
     @Override
@@ -45,7 +55,7 @@ public class ComputerPlayer implements Player {
     }
 
     @Override
-    public void setBoard(GameBoard board) {
+    public void setBoard(ReversiBoard board) {
         this.board = board;
     }
 
@@ -1,215 +1,327 @@
 /**
  * Created by gorram on 11/8/17.
  */
-import java.util.ArrayList;
-
-public class GameBoard {
-    private Tile[][] allTiles;
-    private ArrayList<Tile> totalList;
-    private final int BOARD_WIDTH=8;
+public class GameBoard implements ReversiBoard {
+    private BitBoard bitBoard;
+    private BoardListener listener;
+    //Legal moves and their flips for each playerID, kept until the board next changes
+    private long[] legalMoveCache;
+    private boolean[] legalMovesCached;
+    private long[][] flipCache;
+    private long[] flipsCached;
+    //Undo stack of every move and pass played, preallocated for the longest possible game
+    private int[] historySquares;
+    private int[] historyPlayers;
+    private long[] historyFlips;
+    private int historySize;
+    private int sideToMove;
+    private long hash;
     private final int EMPTY=0;
-    private final int MIDDLE_DIAGONAL=7;
+    private final int MAX_HISTORY=128;
+    public static final int PASS=BitBoard.SQUARES;
 
     /**
-     * Makes a nested Array to contain 64 Tiles who know if they are occupied or not
-     * in order to check moves and flip tiles.
+     * Makes a board in the starting position, backed by a BitBoard which checks moves and flips tiles.
+     * Changes are only reported once a BoardListener is set.
      */
-    public GameBoard(ReversiController controller) {
-        allTiles = new Tile[BOARD_WIDTH][BOARD_WIDTH];
-        totalList=new ArrayList<>();
-        for (int i = 0; i < BOARD_WIDTH; i++) {
-            for (int j = 0; j < BOARD_WIDTH; j++) {
-                Tile newTile = new Tile(i,j, controller);
-                allTiles[i][j] = newTile;
-            }
-        }
-        initializeBoard();
-    }
-
-    /*
-     * Narrows down the list of all tiles in a line to just the ones that would be flipped by a move
-     * of the given color in the given position.
-     * Does so by expanding outwards from the position until hitting a tile that wouldn't be flipped,
-     * then either adding or ignoring the previous tiles based on if the ending tile is empty or already
-     * the new color.
-     */
-    private ArrayList<Tile> checkBoardList(ArrayList<Tile> boardList, int tilePosition, int playerID) {
-        ArrayList<Tile> chain=new ArrayList<Tile>();
-        ArrayList<Tile> leftchain=new ArrayList<Tile>();
-        ArrayList<Tile> rightchain=new ArrayList<Tile>();
-        //Scans right side of tilePosition
-        if(tilePosition!=boardList.size()) {
-            for (int i = tilePosition + 1; i < boardList.size(); i++) {
-                Tile tile = boardList.get(i);
-                if (tile.getColor() == EMPTY) {
-                    break;
-                } else if (tile.getColor() == playerID) {
-                    chain = rightchain;
-                    break;
-                } else {
-                    rightchain.add(tile);
-                }
+    public GameBoard() {
+        bitBoard = BitBoard.startingPosition();
+        legalMoveCache = new long[3];
+        legalMovesCached = new boolean[3];
+        flipCache = new long[3][BitBoard.SQUARES];
+        flipsCached = new long[3];
+        historySquares = new int[MAX_HISTORY];
+        historyPlayers = new int[MAX_HISTORY];
+        historyFlips = new long[MAX_HISTORY];
+        historySize = 0;
+        sideToMove = 1;
+        hash = recomputeHash();
+    }
 
-            }
-        }
-        //Scans left side of tilePosition
-        if (tilePosition!=0) {
-            for (int i = tilePosition - 1; i >= 0; i--) {
-                Tile tile = boardList.get(i);
-                if (tile.getColor() == EMPTY) {
-                    break;
-                } else if (tile.getColor() == playerID) {
-                    for (int j = 0; j < leftchain.size(); j++) {
-                        chain.add(0, leftchain.get(j));
-                    }
-                    break;
-                } else {
-                    leftchain.add(0, tile);
-                }
+    /**
+     * Makes a copy of the given board, including its move history, with no listener.
+     * Used to search a position without changing the board being played on.
+     * @param other
+     */
+    public GameBoard(GameBoard other) {
+        this();
+        bitBoard = new BitBoard(other.bitBoard.getDiscs(1), other.bitBoard.getDiscs(2));
+        System.arraycopy(other.historySquares, 0, historySquares, 0, other.historySize);
+        System.arraycopy(other.historyPlayers, 0, historyPlayers, 0, other.historySize);
+        System.arraycopy(other.historyFlips, 0, historyFlips, 0, other.historySize);
+        historySize = other.historySize;
+        sideToMove = other.sideToMove;
+        hash = other.hash;
+    }
 
-            }
+    public ReversiBoard copy() {
+        return new GameBoard(this);
+    }
+
+    public int getWidth() {
+        return BitBoard.BOARD_WIDTH;
+    }
+
+    public int getSquareCount() {
+        return BitBoard.SQUARES;
+    }
+
+    /**
+     * Sets the listener told about every change to the board, or null for none
+     * @param listener
+     */
+    public void setBoardListener(BoardListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Returns a mask of every square the given player can move to, with bit row*8+col set for (row, col).
+     * Generated once and cached until the board next changes.
+     * @param playerID
+     * @return legal move mask
+     */
+    public long getLegalMoves(int playerID) {
+        if (!legalMovesCached[playerID]) {
+            legalMoveCache[playerID] = bitBoard.legalMoves(playerID);
+            legalMovesCached[playerID] = true;
         }
-        return chain;
-
-    }
-
-    private void tilesToBeFlipped(Tile playedTile, int playerID) {
-        totalList=new ArrayList<>();
-        ArrayList<Tile> rowList = getTilesInRow(playedTile.getRow());
-        ArrayList<Tile> colList = getTilesInCol(playedTile.getCol());
-        ArrayList<Tile> leftdiagList = getTilesInLeftDiag(playedTile.getLeftDiag());
-        ArrayList<Tile> rightdiagList = getTilesInRightDiag(playedTile.getRightDiag());
-        rowList=checkBoardList(rowList, playedTile.getCol(), playerID);
-        colList=checkBoardList(colList, playedTile.getRow(), playerID);
-        int leftdiagPosition=getDiagonalPosition(playedTile.getLeftDiag(), playedTile.getRow());
-        int rightdiagPosition=getDiagonalPosition(playedTile.getRightDiag(), playedTile.getRow());
-        leftdiagList=checkBoardList(leftdiagList,leftdiagPosition, playerID);
-        rightdiagList=checkBoardList(rightdiagList, rightdiagPosition, playerID);
-        totalList.addAll(rowList);
-        totalList.addAll(colList);
-        totalList.addAll(leftdiagList);
-        totalList.addAll(rightdiagList);
-    }
-
-    private void initializeBoard() {
-        for (int i = 0; i < BOARD_WIDTH; i++) {
-            for (int j = 0; j < BOARD_WIDTH; j++) {
-                placeTile(i, j, 0);
-            }
+        return legalMoveCache[playerID];
+    }
+
+    /**
+     * Returns a mask of the tiles a move by the given player on (row, col) would flip,
+     * or 0 if it is not a legal move. Cached alongside the legal moves.
+     * @param row
+     * @param col
+     * @param playerID
+     * @return flipped tile mask
+     */
+    public long getFlips(int row, int col, int playerID) {
+        return getFlips(BitBoard.square(row, col), playerID);
+    }
+
+    private long getFlips(int square, int playerID) {
+        long mask = 1L << square;
+        //Flips are 0 for illegal squares, so this needs no legal move generation
+        if ((flipsCached[playerID] & mask)==0) {
+            flipCache[playerID][square] = bitBoard.flips(square, playerID);
+            flipsCached[playerID] |= mask;
         }
-        placeTile(3, 3, 1);
-        placeTile(3,4,2);
-        placeTile(4,3,2);
-        placeTile(4,4,1);
+        return flipCache[playerID][square];
     }
 
     /**
-     * Will eventually use the getRow, getCol, etc. methods below in order to check if the move would flip tiles
-     * Currently checks if the Tile is empty
+     * Checks if the Tile is empty and a disc of the given player there would flip at least one tile
      * @param row
      * @param col
      * @return boolean
      */
     public boolean isValidMove(int row, int col, int playerID) {
-        Tile tile = getTile(row, col);
-        if (tile.getColor()!=EMPTY) {
-            return false;
-        }
-        tilesToBeFlipped(getTile(row, col), playerID);
-        if (totalList.size()==0) {
-            return false;
-        }
-        return true;
+        return (getLegalMoves(playerID) & BitBoard.bit(row, col))!=0;
     }
 
     /**
-     * Sets the color of the given Tile and all the tiles in totalList to the ID of the given player
+     * Sets the color of the given Tile to the ID of the given player and flips every tile it outflanks
      * @param row
      * @param col
      * @param playerID
      */
     public void placeTile(int row, int col, int playerID) {
-        getTile(row, col).setColor(playerID);
-        for (int i = 0; i < totalList.size(); i++) {
-            totalList.get(i).setColor(playerID);
+        makeMove(BitBoard.square(row, col), playerID);
+    }
+
+    /**
+     * Plays the given player on square row*8+col, flipping every tile it outflanks,
+     * and records the move on the undo stack. The other player moves next.
+     * @param square
+     * @param playerID
+     * @throws IllegalArgumentException if the move is not legal
+     */
+    public void makeMove(int square, int playerID) {
+        if (square < 0 || square >= BitBoard.SQUARES) {
+            throw new IllegalArgumentException("No square " + square);
+        }
+        long flipped = getFlips(square, playerID);
+        //Flips are 0 for occupied squares too, so this catches every illegal move
+        if (flipped == 0L) {
+            throw new IllegalArgumentException("Illegal move " + BitBoard.squareName(square) + " for player " + playerID);
+        }
+        bitBoard.setColor(square, playerID);
+        bitBoard.flip(flipped);
+        hash ^= Zobrist.discKey(playerID, square) ^ Zobrist.flipKey(flipped);
+        pushHistory(square, playerID, flipped);
+        if (listener!=null) {
+            listener.boardChanged(this, flipped | (1L << square));
         }
     }
 
     /**
-     * Checks every tile in the board to see if there are moves available for the given playerID
+     * Records that the given player had no moves. The other player moves next.
+     * @param playerID
+     */
+    public void makePass(int playerID) {
+        pushHistory(PASS, playerID, 0L);
+    }
+
+    private void pushHistory(int square, int playerID, long flipped) {
+        if (historySize == MAX_HISTORY) {
+            throw new IllegalStateException("Move history is full after " + MAX_HISTORY + " moves and passes");
+        }
+        historySquares[historySize] = square;
+        historyPlayers[historySize] = playerID;
+        historyFlips[historySize] = flipped;
+        historySize++;
+        sideToMove = BitBoard.opponent(playerID);
+        hash ^= Zobrist.SIDE_KEY;
+        clearMoveCache();
+        assert hash == recomputeHash();
+    }
+
+    /**
+     * Takes back the last move or pass, restoring the board and side to move exactly as they were
+     * @return the square of the move taken back, PASS for a pass, or -1 if there was nothing to take back
+     */
+    public int unmakeMove() {
+        if (historySize==0) {
+            return -1;
+        }
+        historySize--;
+        int square = historySquares[historySize];
+        sideToMove = historyPlayers[historySize];
+        hash ^= Zobrist.SIDE_KEY;
+        clearMoveCache();
+        if (square!=PASS) {
+            long flipped = historyFlips[historySize];
+            bitBoard.flip(flipped);
+            bitBoard.setColor(square, EMPTY);
+            hash ^= Zobrist.discKey(sideToMove, square) ^ Zobrist.flipKey(flipped);
+            if (listener!=null) {
+                listener.boardChanged(this, flipped | (1L << square));
+            }
+        }
+        assert hash == recomputeHash();
+        return square;
+    }
+
+    /**
+     * Returns the number of moves and passes played so far
+     * @return move count
+     */
+    public int getMoveCount() {
+        return historySize;
+    }
+
+    /**
+     * Returns the square of the given move in the history, or PASS
+     * @param index
+     * @return square
+     */
+    public int getMove(int index) {
+        return historySquares[index];
+    }
+
+    /**
+     * Returns the ID of the player who made the given move in the history
+     * @param index
+     * @return playerID
+     */
+    public int getMovePlayer(int index) {
+        return historyPlayers[index];
+    }
+
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    /**
+     * Returns the Zobrist hash of the position and side to move, kept up to date by every move and undo
+     * @return hash
+     */
+    public long hash() {
+        return hash;
+    }
+
+    /**
+     * Computes the hash from scratch, as a check on the incrementally maintained one
+     * @return hash
+     */
+    public long recomputeHash() {
+        return Zobrist.hash(bitBoard.getDiscs(1), bitBoard.getDiscs(2), sideToMove);
+    }
+
+    private void clearMoveCache() {
+        legalMovesCached[1] = false;
+        legalMovesCached[2] = false;
+        flipsCached[1] = 0L;
+        flipsCached[2] = 0L;
+    }
+
+    /**
+     * Checks the cached legal moves to see if there are moves available for the given playerID
      * @param playerID
      * @return boolean
      */
     public boolean areAvailableMoves(int playerID) {
-        for (int i = 0; i < BOARD_WIDTH; i++) {
-            for (int j = 0; j < BOARD_WIDTH; j++) {
-                if(isValidMove(i,j, playerID)) {
-                    return true;
-                }
-            }
+        return getLegalMoves(playerID)!=0;
+    }
+
+    public int countLegalMoves(int playerID) {
+        return Long.bitCount(getLegalMoves(playerID));
+    }
 
+    /**
+     * Returns the square of the index-th legal move of the given player, counting up from square 0
+     * @param playerID
+     * @param index
+     * @return square
+     */
+    public int getLegalMove(int playerID, int index) {
+        long moves = getLegalMoves(playerID);
+        for (int i = 0; i < index; i++) {
+            moves &= moves - 1;
         }
-        return false;
+        return Long.numberOfTrailingZeros(moves);
     }
 
     /**
-     * Gets the position in the given diagonal of the Tile in the given row
-     * @param diag
+     * Returns 0 for an empty square, otherwise the ID of the player whose tile is on it
      * @param row
-     * @return position
+     * @param col
+     * @return color
      */
-    private int getDiagonalPosition(int diag, int row) {
-        int position=row;
-        if(diag>(MIDDLE_DIAGONAL)) {
-            position=row+MIDDLE_DIAGONAL-diag;
-        }
-        return position;
+    public int getColor(int row, int col) {
+        return bitBoard.getColor(BitBoard.square(row, col));
     }
 
-    private ArrayList<Tile> getTilesInRow(int row) {
-        ArrayList<Tile> rowList = new ArrayList<>();
-        for (int i = 0; i < BOARD_WIDTH; i++) {
-            Tile tile = getTile(row, i);
-            rowList.add(tile);
-        }
-        return rowList;
+    /**
+     * Counts the tiles of the given player
+     * @param playerID
+     * @return score
+     */
+    public int getScore(int playerID) {
+        return bitBoard.countDiscs(playerID);
     }
-    private ArrayList<Tile> getTilesInCol(int col) {
-        ArrayList<Tile> colList = new ArrayList<>();
-        for (int i = 0; i < BOARD_WIDTH; i++) {
-            Tile tile = getTile(i, col);
-            colList.add(tile);
-        }
-        return colList;
-    }
-    private ArrayList<Tile> getTilesInLeftDiag(int leftDiag) {
-        ArrayList<Tile> leftDiagList = new ArrayList<>();
-        for (int i = 0; i < BOARD_WIDTH; i++) {
-            for (int j = 0; j < BOARD_WIDTH; j++) {
-                Tile tile = getTile(i,j);
-                if(tile.getLeftDiag()==leftDiag) {
-                    leftDiagList.add(tile);
-                }
-            }
 
-        }
-        return leftDiagList;
-    }
-    private ArrayList<Tile> getTilesInRightDiag(int rightDiag){
-        ArrayList<Tile> rightDiagList = new ArrayList<>();
-        for (int i = 0; i < BOARD_WIDTH; i++) {
-            for (int j = 0; j < BOARD_WIDTH; j++) {
-                Tile tile = getTile(i,j);
-                if(tile.getRightDiag()==rightDiag) {
-                    rightDiagList.add(tile);
-                }
-            }
+    /**
+     * Returns a mask of the tiles of the given player, bit row*8+col for (row, col)
+     * @param playerID
+     * @return discs
+     */
+    public long getDiscs(int playerID) {
+        return bitBoard.getDiscs(playerID);
+    }
 
-        }
-        return rightDiagList;
+    public int getEmptyCount() {
+        return Long.bitCount(bitBoard.getEmpty());
     }
 
+    /**
+     * Returns a snapshot of the given square; changing it does not change the board
+     * @param row
+     * @param col
+     * @return Tile
+     */
     public Tile getTile(int row, int col) {
-        return allTiles[row][col];
+        return new Tile(row, col, getColor(row, col));
     }
 }
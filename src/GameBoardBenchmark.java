@@ -0,0 +1,235 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks the GameBoard hot paths on a fixed corpus of mid-game positions:
+ * move validation, flip application, legal move generation, score counting and whole random games.
+ * Everything goes through GameBoard's own methods, so its legal move cache is part of what is timed;
+ * legal move generation is timed both fresh, with the cache cleared by a pass and its undo, and cached.
+ * Each benchmark is warmed up, then timed over several rounds, and the results are written as JSON
+ * so they can be compared across releases, with a checksum of the work done so the JIT cannot drop it.
+ * Usage: java GameBoardBenchmark [output.json]
+ */
+public class GameBoardBenchmark {
+    private static final int CORPUS_SIZE = 64;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final long ROUND_NANOS = 500000000L;
+
+    private final List<GameBoard> corpus;
+    //Results are folded into this and printed as each benchmark's checksum, so the JIT cannot discard the work being timed
+    private long sink;
+
+    private interface Operation {
+        /**
+         * Runs one pass of the benchmark and returns a value depending on all the work done
+         */
+        long run();
+    }
+
+    public GameBoardBenchmark(List<GameBoard> corpus) {
+        this.corpus = corpus;
+    }
+
+    private long validateMoves() {
+        long valid = 0;
+        for (GameBoard board : corpus) {
+            int side = board.getSideToMove();
+            long empty = ~(board.getDiscs(1) | board.getDiscs(2));
+            while (empty != 0) {
+                int square = Long.numberOfTrailingZeros(empty);
+                empty &= empty - 1;
+                if (board.isValidMove(square / BitBoard.BOARD_WIDTH, square % BitBoard.BOARD_WIDTH, side)) {
+                    valid++;
+                }
+            }
+        }
+        return valid;
+    }
+
+    private long applyFlips() {
+        long hash = 0;
+        for (GameBoard board : corpus) {
+            int side = board.getSideToMove();
+            long moves = board.getLegalMoves(side);
+            while (moves != 0) {
+                int square = Long.numberOfTrailingZeros(moves);
+                moves &= moves - 1;
+                board.makeMove(square, side);
+                hash ^= board.hash();
+                board.unmakeMove();
+            }
+        }
+        return hash;
+    }
+
+    /*
+     * A pass and its undo clear the move cache, as any move would, so every call generates the moves afresh
+     */
+    private long generateMoves() {
+        long moves = 0;
+        for (GameBoard board : corpus) {
+            int side = board.getSideToMove();
+            board.makePass(side);
+            board.unmakeMove();
+            moves ^= board.getLegalMoves(side);
+        }
+        return moves;
+    }
+
+    private long generateCachedMoves() {
+        long moves = 0;
+        for (GameBoard board : corpus) {
+            moves ^= board.getLegalMoves(board.getSideToMove());
+        }
+        return moves;
+    }
+
+    private long countScores() {
+        long total = 0;
+        for (GameBoard board : corpus) {
+            total += board.getScore(1) - board.getScore(2);
+        }
+        return total;
+    }
+
+    private long seed = 1;
+
+    private long playRandomGame() {
+        GameBoard board = new GameBoard();
+        while (true) {
+            int side = board.getSideToMove();
+            long moves = board.getLegalMoves(side);
+            if (moves == 0) {
+                if (!board.areAvailableMoves(BitBoard.opponent(side))) {
+                    return board.getScore(1);
+                }
+                board.makePass(side);
+            } else {
+                seed ^= seed << 13;
+                seed ^= seed >>> 7;
+                seed ^= seed << 17;
+                int choice = (int) ((seed >>> 1) % Long.bitCount(moves));
+                for (int i = 0; i < choice; i++) {
+                    moves &= moves - 1;
+                }
+                board.makeMove(Long.numberOfTrailingZeros(moves), side);
+            }
+        }
+    }
+
+    private int countEmpties() {
+        int empties = 0;
+        for (GameBoard board : corpus) {
+            empties += board.getEmptyCount();
+        }
+        return empties;
+    }
+
+    private int countLegalMoves() {
+        int moves = 0;
+        for (GameBoard board : corpus) {
+            moves += Long.bitCount(board.getLegalMoves(board.getSideToMove()));
+        }
+        return moves;
+    }
+
+    /*
+     * Times the operation and returns the mean and standard deviation of nanoseconds per op,
+     * where one pass of the operation counts as opsPerPass ops.
+     */
+    private double[] measure(Operation operation, int opsPerPass) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            timeRound(operation, opsPerPass);
+        }
+        double[] rounds = new double[MEASURED_ROUNDS];
+        double total = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            rounds[round] = timeRound(operation, opsPerPass);
+            total += rounds[round];
+        }
+        double mean = total / MEASURED_ROUNDS;
+        double variance = 0;
+        for (double round : rounds) {
+            variance += (round - mean) * (round - mean);
+        }
+        return new double[] {mean, Math.sqrt(variance / (MEASURED_ROUNDS - 1))};
+    }
+
+    private double timeRound(Operation operation, int opsPerPass) {
+        long passes = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            sink += operation.run();
+            passes++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ROUND_NANOS);
+        return (double) elapsed / (passes * opsPerPass);
+    }
+
+    /**
+     * Runs every benchmark and writes one JSON object per benchmark as an array
+     * @param out
+     * @throws IOException
+     */
+    public void runAll(Writer out) throws IOException {
+        List<String> names = new ArrayList<>();
+        List<double[]> results = new ArrayList<>();
+        List<Long> checksums = new ArrayList<>();
+        names.add("moveValidation");
+        results.add(measure(this::validateMoves, countEmpties()));
+        checksums.add(takeSink());
+        names.add("flipApplication");
+        results.add(measure(this::applyFlips, countLegalMoves()));
+        checksums.add(takeSink());
+        names.add("legalMoveGeneration");
+        results.add(measure(this::generateMoves, corpus.size()));
+        checksums.add(takeSink());
+        names.add("legalMoveGenerationCached");
+        results.add(measure(this::generateCachedMoves, corpus.size()));
+        checksums.add(takeSink());
+        names.add("scoreCounting");
+        results.add(measure(this::countScores, corpus.size()));
+        checksums.add(takeSink());
+        names.add("randomGame");
+        results.add(measure(this::playRandomGame, 1));
+        checksums.add(takeSink());
+
+        PrintWriter writer = new PrintWriter(out);
+        writer.println("[");
+        for (int i = 0; i < names.size(); i++) {
+            double[] result = results.get(i);
+            writer.printf("  {\"benchmark\": \"%s\", \"mode\": \"avgt\", \"unit\": \"ns/op\", \"score\": %.3f, "
+                            + "\"scoreError\": %.3f, \"opsPerSecond\": %.0f, \"rounds\": %d, \"corpusSize\": %d, "
+                            + "\"checksum\": %d, \"javaVersion\": \"%s\"}%s%n",
+                    names.get(i), result[0], result[1], 1e9 / result[0], MEASURED_ROUNDS, corpus.size(),
+                    checksums.get(i), System.getProperty("java.version"), i < names.size() - 1 ? "," : "");
+        }
+        writer.println("]");
+        writer.flush();
+    }
+
+    private long takeSink() {
+        long value = sink;
+        sink = 0;
+        return value;
+    }
+
+    public static void main(String[] args) throws IOException {
+        GameBoardBenchmark benchmark = new GameBoardBenchmark(
+                PositionCorpus.midGamePositions(CORPUS_SIZE, PositionCorpus.DEFAULT_SEED));
+        if (args.length > 0) {
+            try (Writer out = new FileWriter(args[0])) {
+                benchmark.runAll(out);
+            }
+        } else {
+            benchmark.runAll(new OutputStreamWriter(System.out));
+        }
+    }
+}
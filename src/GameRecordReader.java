@@ -0,0 +1,147 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a game record file written by GameRecordWriter one game at a time, through a buffered
+ * FileChannel, so files of any size stream in constant memory.
+ * Usage: java GameRecordReader <file>
+ * replays every game in the file and reports how fast that went.
+ */
+public class GameRecordReader implements Closeable {
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final long gameCount;
+    private final byte[] moves = new byte[256];
+
+    /**
+     * Opens the file and checks its header
+     * @param path
+     * @throws IOException if the file is not a game record file
+     */
+    public GameRecordReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer.flip();
+        if (!fill(GameRecordWriter.HEADER_BYTES) || buffer.getInt() != GameRecordWriter.MAGIC
+                || buffer.getShort() != GameRecordWriter.VERSION) {
+            channel.close();
+            throw new IOException("Not a game record file: " + path);
+        }
+        buffer.getShort();
+        gameCount = buffer.getLong();
+    }
+
+    /**
+     * Returns the number of games in the file, as recorded when it was written
+     * @return game count
+     */
+    public long getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * Reads the next game's moves into the array, each a square or GameBoard.PASS
+     * @param moves array of at least 255 entries
+     * @return the number of moves, or -1 at the end of the file
+     * @throws IOException if the file ends in the middle of a game
+     */
+    public int nextMoves(byte[] moves) throws IOException {
+        if (!fill(1)) {
+            return -1;
+        }
+        int count = buffer.get() & 0xff;
+        if (!fill(count)) {
+            throw new IOException("Game record file ends in the middle of a game");
+        }
+        buffer.get(moves, 0, count);
+        return count;
+    }
+
+    /**
+     * Takes the board back to the starting position and replays the next game on it,
+     * so one board can be reused for every game in the file
+     * @param board
+     * @return false at the end of the file
+     * @throws IOException if the game holds a move that is not legal
+     */
+    public boolean nextGame(GameBoard board) throws IOException {
+        int count = nextMoves(moves);
+        if (count < 0) {
+            return false;
+        }
+        while (board.unmakeMove() != -1) {
+            //Back to the starting position
+        }
+        for (int i = 0; i < count; i++) {
+            int square = moves[i];
+            int side = board.getSideToMove();
+            if (square == GameBoard.PASS) {
+                if (board.areAvailableMoves(side)) {
+                    throw new IOException("Illegal pass at move " + (i + 1));
+                }
+                board.makePass(side);
+            } else if (square >= 0 && square < BitBoard.SQUARES
+                    && board.getFlips(square / BitBoard.BOARD_WIDTH, square % BitBoard.BOARD_WIDTH, side) != 0) {
+                board.makeMove(square, side);
+            } else {
+                throw new IOException("Illegal move " + square + " at move " + (i + 1));
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Makes sure at least the given number of bytes are buffered, reading more if needed.
+     * Returns false if the file ends first.
+     */
+    private boolean fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                buffer.flip();
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java GameRecordReader <file>");
+            return;
+        }
+        long start = System.nanoTime();
+        long games = 0;
+        long moves = 0;
+        long player1Discs = 0;
+        long player2Discs = 0;
+        GameBoard board = new GameBoard();
+        try (GameRecordReader reader = new GameRecordReader(Paths.get(args[0]))) {
+            while (reader.nextGame(board)) {
+                games++;
+                moves += board.getMoveCount();
+                player1Discs += board.getScore(1);
+                player2Discs += board.getScore(2);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games, %d moves replayed in %.2f s (%.0f games/s)%n", games, moves, seconds, games / seconds);
+        System.out.printf("average final discs: player 1 %.2f, player 2 %.2f%n",
+                (double) player1Discs / Math.max(1, games), (double) player2Discs / Math.max(1, games));
+    }
+}
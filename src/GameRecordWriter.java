@@ -0,0 +1,80 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes games to a compact binary game record file, one game at a time.
+ * The file is a 16-byte header (magic, version, reserved short, number of games) followed by one
+ * record per game: a byte holding the number of moves, then one byte per move holding the square,
+ * or GameBoard.PASS for a pass. Games are buffered and written through a FileChannel, and the game
+ * count in the header is filled in when the writer is closed.
+ * Writes are synchronized so simulation threads can share one writer.
+ */
+public class GameRecordWriter implements Closeable {
+    public static final int MAGIC = 0x52564752;
+    public static final short VERSION = 1;
+    public static final int HEADER_BYTES = 16;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private long games;
+
+    /**
+     * Creates the file, replacing any file already there
+     * @param path
+     * @throws IOException
+     */
+    public GameRecordWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putLong(0L);
+    }
+
+    /**
+     * Appends every move and pass played on the board so far
+     * @param board
+     * @throws IOException
+     */
+    public synchronized void write(GameBoard board) throws IOException {
+        int moves = board.getMoveCount();
+        if (buffer.remaining() < moves + 1) {
+            flush();
+        }
+        buffer.put((byte) moves);
+        for (int i = 0; i < moves; i++) {
+            buffer.put((byte) board.getMove(i));
+        }
+        games++;
+    }
+
+    public synchronized long getGameCount() {
+        return games;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes out the buffered games and the game count, then closes the file
+     * @throws IOException
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+            buffer.putLong(games).flip();
+            channel.write(buffer, 8);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Plays a whole game between two computer players with no controller or view,
+ * following the same turn and pass rules as ReversiController.
+ */
+public class HeadlessGame {
+
+    /**
+     * Plays a game from the starting position and returns the finished board
+     * @param player1
+     * @param player2
+     * @return GameBoard
+     */
+    public static GameBoard play(Player player1, Player player2) {
+        return play(new GameBoard(), player1, player2);
+    }
+
+    /**
+     * Plays out the game from the given position, with the side to move going first,
+     * and returns the same board once neither player can move
+     * @param board
+     * @param player1
+     * @param player2
+     * @return GameBoard
+     */
+    public static GameBoard play(GameBoard board, Player player1, Player player2) {
+        ReversiMetrics metrics = ReversiMetrics.get();
+        player1.setBoard(board);
+        player2.setBoard(board);
+        metrics.gameStarted();
+        while (true) {
+            int side = board.getSideToMove();
+            Player current = side == 1 ? player1 : player2;
+            if (!board.areAvailableMoves(side)) {
+                if (!board.areAvailableMoves(BitBoard.opponent(side))) {
+                    metrics.gameEnded(true);
+                    return board;
+                }
+                board.makePass(side);
+                metrics.passPlayed();
+            } else if (current.moveIfValid(0, 0)) {
+                metrics.movePlayed();
+            } else {
+                metrics.gameEnded(false);
+                throw new IllegalStateException("Player " + side + " did not move with moves available");
+            }
+        }
+    }
+}
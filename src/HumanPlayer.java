@@ -3,7 +3,7 @@
  * Created by gorram on 11/8/17.
  */
 public class HumanPlayer implements Player {
-    GameBoard board;
+    ReversiBoard board;
     int playerID;
     String tileColor;
 
@@ -29,20 +29,29 @@ public class HumanPlayer implements Player {
     @Override
     public boolean
     moveIfValid(int row, int col) {
-        if (board.isValidMove(row, col, playerID)) {
+        if (ReversiMetrics.get().isValidMove(board, row, col, playerID)) {
             board.placeTile(row, col, playerID);
             return true;
         }
         return false;
     }
 
+    /**
+     * Human players choose their moves by clicking, so this never picks a square.
+     * @return the board's square count, which stands for a pass at every width
+     */
+    @Override
+    public int chooseMove() {
+        return board.getSquareCount();
+    }
+
     @Override
     public String getPlayerType() {
         return "Human";
     }
 
     @Override
-    public void setBoard(GameBoard board) {
+    public void setBoard(ReversiBoard board) {
         this.board = board;
     }
 
@@ -0,0 +1,209 @@
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Scores every legal move of the side to move in the background, one depth at a time, for hints.
+ * Each move is searched on its own, so every square gets a score rather than only the best one,
+ * and a new Analysis is published after each move so scores appear as soon as they are known.
+ * Analyses are handed over through the delivery executor (Platform::runLater in the app) coalesced:
+ * at most one delivery is queued at a time and it carries the latest analysis, however many were published.
+ */
+public class MoveAnalyzer {
+    public static final int NO_SCORE = Integer.MIN_VALUE;
+    private static final int MAX_DEPTH = 20;
+    private static final long TABLE_MEGABYTES = 16;
+
+    private final Executor delivery;
+    private final ExecutorService executor;
+    private final SearchEngine engine = new SearchEngine(new TranspositionTable(TABLE_MEGABYTES));
+    private final AtomicReference<Analysis> latest = new AtomicReference<>();
+    private volatile Consumer<Analysis> onAnalysis;
+    private final AtomicBoolean deliveryQueued = new AtomicBoolean();
+    //Bumped by every analyze and cancel, so work and deliveries of older positions are dropped
+    private volatile int generation;
+    private final Object lock = new Object();
+
+    /**
+     * Makes an analyzer that delivers analyses through the given executor
+     * @param delivery
+     */
+    public MoveAnalyzer(Executor delivery) {
+        this.delivery = delivery;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "analysis");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts analyzing the position for its side to move, cancelling any analysis still running.
+     * The board is copied first, so it may change as soon as this returns.
+     * Analyses are passed to onAnalysis, deepest last, until the position is cancelled or fully searched.
+     * @param position
+     * @param onAnalysis
+     */
+    public void analyze(GameBoard position, Consumer<Analysis> onAnalysis) {
+        GameBoard board = new GameBoard(position);
+        int thisGeneration;
+        synchronized (lock) {
+            cancel();
+            thisGeneration = generation;
+            this.onAnalysis = onAnalysis;
+        }
+        executor.execute(() -> run(board, thisGeneration));
+    }
+
+    /**
+     * Stops the running analysis as soon as the engine next checks its limits; nothing more of it is delivered
+     */
+    public void cancel() {
+        synchronized (lock) {
+            generation++;
+            engine.stop();
+        }
+    }
+
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    private void run(GameBoard board, int thisGeneration) {
+        int side = board.getSideToMove();
+        int opponent = BitBoard.opponent(side);
+        long moves = board.getLegalMoves(side);
+        if (moves == 0) {
+            return;
+        }
+        int[] scores = new int[BitBoard.SQUARES];
+        Arrays.fill(scores, NO_SCORE);
+        //Depth 1 would score the moves with mobility alone, in other units than the searches
+        int lastDepth = Math.max(2, Math.min(MAX_DEPTH, board.getEmptyCount()));
+        for (int depth = 2; depth <= lastDepth; depth++) {
+            long remaining = moves;
+            while (remaining != 0) {
+                int square = Long.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+                synchronized (lock) {
+                    if (thisGeneration != generation) {
+                        return;
+                    }
+                    engine.resetStop();
+                }
+                board.makeMove(square, side);
+                int score = scoreReply(board, side, opponent, depth - 1);
+                board.unmakeMove();
+                if (thisGeneration != generation) {
+                    return;
+                }
+                scores[square] = score;
+                //The first depth is published once every move has a score, then each deeper score as it comes
+                if (depth > 2 || remaining == 0) {
+                    publish(new Analysis(thisGeneration, side, depth, scores.clone()));
+                }
+            }
+        }
+    }
+
+    /*
+     * Scores the position after side's move from side's point of view, searching depth more plies
+     */
+    private int scoreReply(GameBoard board, int side, int opponent, int depth) {
+        boolean opponentMoves = board.areAvailableMoves(opponent);
+        if (!opponentMoves && !board.areAvailableMoves(side)) {
+            int difference = board.getScore(side) - board.getScore(opponent);
+            return difference > 0 ? SearchEngine.WIN_SCORE + difference : difference < 0 ? -SearchEngine.WIN_SCORE + difference : 0;
+        }
+        engine.setMaxDepth(depth);
+        if (opponentMoves) {
+            return -engine.search(board, opponent, 0, 0).getScore();
+        }
+        return engine.search(board, side, 0, 0).getScore();
+    }
+
+    private void publish(Analysis analysis) {
+        latest.set(analysis);
+        if (deliveryQueued.compareAndSet(false, true)) {
+            delivery.execute(() -> {
+                deliveryQueued.set(false);
+                Analysis newest = latest.get();
+                if (newest.generation == generation) {
+                    onAnalysis.accept(newest);
+                }
+            });
+        }
+    }
+
+    /**
+     * A snapshot of the scores found so far, one per square, from the point of view of the side to move
+     */
+    public static class Analysis {
+        private final int generation;
+        private final int sideToMove;
+        private final int depth;
+        private final int[] scores;
+
+        Analysis(int generation, int sideToMove, int depth, int[] scores) {
+            this.generation = generation;
+            this.sideToMove = sideToMove;
+            this.depth = depth;
+            this.scores = scores;
+        }
+
+        public int getSideToMove() {
+            return sideToMove;
+        }
+
+        /**
+         * Returns the deepest depth any move has been searched to
+         * @return depth
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Returns the score of a move on the square row*8+col, or NO_SCORE if it is not a legal move
+         * @param square
+         * @return score
+         */
+        public int getScore(int square) {
+            return scores[square];
+        }
+
+        /**
+         * Returns the square of the best scoring move, or GameBoard.PASS if there is none
+         * @return square
+         */
+        public int getBestMove() {
+            int best = GameBoard.PASS;
+            for (int square = 0; square < BitBoard.SQUARES; square++) {
+                if (scores[square] != NO_SCORE && (best == GameBoard.PASS || scores[square] > scores[best])) {
+                    best = square;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Formats a score for display: "W+n" or "L-n" for a won or lost game by n discs, otherwise the score
+         * @param score
+         * @return label
+         */
+        public static String label(int score) {
+            if (score > SearchEngine.WIN_SCORE / 2) {
+                return "W+" + (score - SearchEngine.WIN_SCORE);
+            } else if (score < -SearchEngine.WIN_SCORE / 2) {
+                return "L" + (score + SearchEngine.WIN_SCORE);
+            }
+            return Integer.toString(score);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+import java.util.Arrays;
+
+/**
+ * Orders the moves of one SearchEngine so that alpha-beta finds cutoffs early.
+ * The hash move comes first, then corners, then the two killer moves of the ply (quiet moves
+ * that recently caused a cutoff at the same distance from the root), then everything else by
+ * square class, with C-squares and X-squares last, and by the history table within a class.
+ * All buffers are primitive arrays made once and reused by every search.
+ * Also counts how often a cutoff came from the first move tried, the usual measure of ordering quality.
+ */
+public class MoveOrderer {
+    public static final int MAX_PLY = 128;
+    private static final int HISTORY_LIMIT = 1 << 23;
+    //Keys are the class in the top bits and the history score below
+    private static final int CLASS_SHIFT = 24;
+    private static final int HASH_MOVE = 6;
+    private static final int CORNER = 5;
+    private static final int FIRST_KILLER = 4;
+    private static final int SECOND_KILLER = 3;
+    private static final int ORDINARY = 2;
+    private static final int C_SQUARE = 1;
+    private static final int X_SQUARE = 0;
+    private static final int[] SQUARE_CLASS = new int[BitBoard.SQUARES];
+
+    static {
+        Arrays.fill(SQUARE_CLASS, ORDINARY);
+        for (int square : new int[] {0, 7, 56, 63}) {
+            SQUARE_CLASS[square] = CORNER;
+        }
+        for (int square : new int[] {1, 6, 8, 15, 48, 55, 57, 62}) {
+            SQUARE_CLASS[square] = C_SQUARE;
+        }
+        for (int square : new int[] {9, 14, 49, 54}) {
+            SQUARE_CLASS[square] = X_SQUARE;
+        }
+    }
+
+    private final int[][] moveBuffer = new int[MAX_PLY][BitBoard.SQUARES];
+    private final int[][] keyBuffer = new int[MAX_PLY][BitBoard.SQUARES];
+    private final int[] killers = new int[MAX_PLY * 2];
+    //history[playerID * 64 + square] grows with the depth of every cutoff the move caused
+    private final int[] history = new int[3 * BitBoard.SQUARES];
+    private boolean enabled = true;
+    private long cutoffs;
+    private long firstMoveCutoffs;
+
+    public MoveOrderer() {
+        Arrays.fill(killers, GameBoard.PASS);
+    }
+
+    /**
+     * Forgets the killers, which belong to the previous position, and halves the history
+     * so it favours what worked recently
+     */
+    public void newSearch() {
+        Arrays.fill(killers, GameBoard.PASS);
+        ageHistory();
+    }
+
+    /**
+     * Fills the buffer for the given ply with the legal moves in the order to try them and returns how many there are
+     * @param moves
+     * @param hashMove
+     * @param side
+     * @param ply
+     * @return move count
+     */
+    public int order(long moves, int hashMove, int side, int ply) {
+        int[] ordered = moveBuffer[ply];
+        int[] keys = keyBuffer[ply];
+        int firstKiller = killers[ply * 2];
+        int secondKiller = killers[ply * 2 + 1];
+        int count = 0;
+        while (moves != 0) {
+            int square = Long.numberOfTrailingZeros(moves);
+            moves &= moves - 1;
+            int key = 0;
+            if (square == hashMove) {
+                key = HASH_MOVE << CLASS_SHIFT;
+            } else if (enabled) {
+                int squareClass = SQUARE_CLASS[square];
+                if (squareClass != CORNER) {
+                    if (square == firstKiller) {
+                        squareClass = FIRST_KILLER;
+                    } else if (square == secondKiller) {
+                        squareClass = SECOND_KILLER;
+                    }
+                }
+                key = (squareClass << CLASS_SHIFT) | history[side * BitBoard.SQUARES + square];
+            }
+            int i = count++;
+            while (i > 0 && keys[i - 1] < key) {
+                keys[i] = keys[i - 1];
+                ordered[i] = ordered[i - 1];
+                i--;
+            }
+            keys[i] = key;
+            ordered[i] = square;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the index-th move of the last order() at the given ply
+     * @param ply
+     * @param index
+     * @return square
+     */
+    public int getMove(int ply, int index) {
+        return moveBuffer[ply][index];
+    }
+
+    /**
+     * Records that the move tried at the given index caused a beta cutoff, making it a killer
+     * at this ply and raising its history score
+     * @param square
+     * @param side
+     * @param ply
+     * @param depth
+     * @param index
+     */
+    public void cutoff(int square, int side, int ply, int depth, int index) {
+        cutoffs++;
+        if (index == 0) {
+            firstMoveCutoffs++;
+        }
+        if (!enabled) {
+            return;
+        }
+        if (killers[ply * 2] != square) {
+            killers[ply * 2 + 1] = killers[ply * 2];
+            killers[ply * 2] = square;
+        }
+        int slot = side * BitBoard.SQUARES + square;
+        history[slot] += depth * depth;
+        if (history[slot] >= HISTORY_LIMIT) {
+            ageHistory();
+        }
+    }
+
+    private void ageHistory() {
+        for (int i = 0; i < history.length; i++) {
+            history[i] >>= 1;
+        }
+    }
+
+    /**
+     * Turns killers, history and square classes on or off; with them off only the hash move is moved
+     * to the front, so the gain can be measured
+     * @param enabled
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    /**
+     * Returns the share of cutoffs that came from the first move tried, or 0 before any cutoff
+     * @return rate between 0 and 1
+     */
+    public double getFirstMoveCutoffRate() {
+        return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    public void resetStatistics() {
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+    }
+}
@@ -0,0 +1,143 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read-only opening book memory-mapped from a file written by OpeningBookBuilder.
+ * The file is a 16-byte header followed by fixed 16-byte records sorted by key, so a lookup is a
+ * binary search straight over the mapped file: nothing is loaded onto the heap and opening is instant
+ * whatever the size. Positions are stored in their Symmetry canonical orientation, so the up to eight
+ * symmetric copies of a position share one record.
+ *
+ * Record layout: key (long), score (short, mean final disc differential for the mover),
+ * move (byte, square in the canonical orientation), unused (byte), games (int).
+ */
+public class OpeningBook {
+    public static final int MAGIC = 0x52564221;
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 16;
+    public static final int RECORD_BYTES = 16;
+    //Records per mapped segment, keeping each under the 2 GB mapping limit
+    private static final long RECORDS_PER_SEGMENT = 1L << 26;
+
+    private final MappedByteBuffer[] segments;
+    private final long size;
+
+    /**
+     * Maps the book in the given file
+     * @param path
+     * @throws IOException if the file cannot be read or is not a book
+     */
+    public OpeningBook(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.BIG_ENDIAN);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            size = header.getLong(8);
+            if (channel.size() != HEADER_BYTES + size * RECORD_BYTES) {
+                throw new IOException("Truncated opening book: " + path);
+            }
+            int segmentCount = (int) Math.max(1, (size + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT);
+            segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long first = i * RECORDS_PER_SEGMENT;
+                long records = Math.min(RECORDS_PER_SEGMENT, size - first);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * RECORD_BYTES,
+                        records * RECORD_BYTES);
+            }
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Looks the position up for the given player with one canonicalization and one binary search,
+     * filling in the entry with the book move, mapped back to the board's orientation, and its score.
+     * Nothing is allocated, so the caller keeps one entry and reuses it for every probe.
+     * @param board
+     * @param playerID
+     * @param entry
+     * @return true if the position is in the book
+     */
+    public boolean probe(GameBoard board, int playerID, Entry entry) {
+        int transform = Symmetry.canonicalize(board.getDiscs(1), board.getDiscs(2), entry.canonical);
+        long record = find(key(entry.canonical[0], entry.canonical[1], playerID));
+        if (record < 0) {
+            entry.move = GameBoard.PASS;
+            entry.score = 0;
+            return false;
+        }
+        int canonicalMove = segment(record).get(offset(record) + 10) & 0xff;
+        entry.move = Symmetry.transformSquare(canonicalMove, Symmetry.inverse(transform));
+        entry.score = segment(record).getShort(offset(record) + 8);
+        return true;
+    }
+
+    private long find(long key) {
+        long low = 0;
+        long high = size - 1;
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            long middleKey = segment(middle).getLong(offset(middle));
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private MappedByteBuffer segment(long record) {
+        return segments[(int) (record / RECORDS_PER_SEGMENT)];
+    }
+
+    private static int offset(long record) {
+        return (int) (record % RECORDS_PER_SEGMENT) * RECORD_BYTES;
+    }
+
+    /**
+     * Returns the key a canonical position is stored under
+     * @param player1Discs
+     * @param player2Discs
+     * @param sideToMove
+     * @return key
+     */
+    static long key(long player1Discs, long player2Discs, int sideToMove) {
+        return Zobrist.hash(player1Discs, player2Discs, sideToMove);
+    }
+
+    /**
+     * The result of the last probe with this entry. Each thread probing the book needs its own.
+     */
+    public static class Entry {
+        private final long[] canonical = new long[2];
+        private int move = GameBoard.PASS;
+        private int score;
+
+        /**
+         * Returns the book move, or GameBoard.PASS if the position was not in the book
+         * @return square
+         */
+        public int getMove() {
+            return move;
+        }
+
+        /**
+         * Returns the mean final disc differential for the mover recorded for the position, or 0 if it was not in the book
+         * @return score
+         */
+        public int getScore() {
+            return score;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Builds an OpeningBook file from finished games, played by the builder itself or imported.
+ * Every position in the first plies of each game is recorded in its canonical orientation, so
+ * symmetric copies are merged, along with the move played and the final result. The book keeps,
+ * for each position, the move with the best mean result.
+ * Usage: java OpeningBookBuilder <book> selfplay <games> [nodes per move]
+ *        java OpeningBookBuilder <book> import <games.txt>
+ * where each line of an imported file is one game written as square names, e.g. "f4d3c3...".
+ */
+public class OpeningBookBuilder {
+    public static final int DEFAULT_PLIES = 20;
+    private static final int RANDOM_PLIES = 6;
+
+    private final int maxPlies;
+    //Canonical key to canonical move to {games, total final disc differential for the mover}
+    private final Map<Long, Map<Integer, long[]>> positions = new HashMap<>();
+
+    public OpeningBookBuilder(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * Records the opening of a finished game, replaying its move history from the starting position
+     * @param finished
+     */
+    public void addGame(GameBoard finished) {
+        int difference = finished.getScore(1) - finished.getScore(2);
+        GameBoard board = new GameBoard();
+        long[] canonical = new long[2];
+        for (int i = 0; i < finished.getMoveCount() && i < maxPlies; i++) {
+            int square = finished.getMove(i);
+            int playerID = finished.getMovePlayer(i);
+            if (square == GameBoard.PASS) {
+                board.makePass(playerID);
+                continue;
+            }
+            int transform = Symmetry.canonicalize(board.getDiscs(1), board.getDiscs(2), canonical);
+            long key = OpeningBook.key(canonical[0], canonical[1], playerID);
+            int canonicalMove = Symmetry.transformSquare(square, transform);
+            long[] stats = positions.computeIfAbsent(key, k -> new HashMap<>())
+                    .computeIfAbsent(canonicalMove, m -> new long[2]);
+            stats[0]++;
+            stats[1] += playerID == 1 ? difference : -difference;
+            board.makeMove(square, playerID);
+        }
+    }
+
+    /**
+     * Plays games between node-limited search players, starting each from a few random moves
+     * so the book covers more than one line, and records them
+     * @param games
+     * @param nodesPerMove
+     * @param seed
+     */
+    public void selfPlay(int games, long nodesPerMove, long seed) {
+        Random random = new Random(seed);
+        Player player1 = new SearchPlayer(1, 0, nodesPerMove);
+        Player player2 = new SearchPlayer(2, 0, nodesPerMove);
+        for (int game = 0; game < games; game++) {
+            GameBoard board = new GameBoard();
+            for (int ply = 0; ply < RANDOM_PLIES; ply++) {
+                int side = board.getSideToMove();
+                long moves = board.getLegalMoves(side);
+                int choice = random.nextInt(Long.bitCount(moves));
+                for (int i = 0; i < choice; i++) {
+                    moves &= moves - 1;
+                }
+                board.makeMove(Long.numberOfTrailingZeros(moves), side);
+            }
+            addGame(HeadlessGame.play(board, player1, player2));
+        }
+        ((SearchPlayer) player1).shutdown();
+        ((SearchPlayer) player2).shutdown();
+    }
+
+    /**
+     * Reads games written one per line as square names and records them.
+     * A side with no legal move is assumed to pass.
+     * @param path
+     * @return number of games read
+     * @throws IOException
+     */
+    public int importGames(Path path) throws IOException {
+        int games = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                GameBoard board = new GameBoard();
+                for (int i = 0; i + 1 < line.length(); i += 2) {
+                    int side = board.getSideToMove();
+                    if (!board.areAvailableMoves(side)) {
+                        board.makePass(side);
+                        side = board.getSideToMove();
+                    }
+                    int square = BitBoard.parseSquare(line.substring(i, i + 2));
+                    if (!board.isValidMove(square / BitBoard.BOARD_WIDTH, square % BitBoard.BOARD_WIDTH, side)) {
+                        throw new IOException("Illegal move " + line.substring(i, i + 2) + " in game " + (games + 1));
+                    }
+                    board.makeMove(square, side);
+                }
+                addGame(board);
+                games++;
+            }
+        }
+        return games;
+    }
+
+    /**
+     * Writes the book, sorted by key, and returns how many positions it holds
+     * @param path
+     * @return positions
+     * @throws IOException
+     */
+    public long write(Path path) throws IOException {
+        long[] keys = new long[positions.size()];
+        int index = 0;
+        for (long key : positions.keySet()) {
+            keys[index++] = key;
+        }
+        Arrays.sort(keys);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            buffer.putInt(OpeningBook.MAGIC).putInt(OpeningBook.VERSION).putLong(keys.length);
+            for (long key : keys) {
+                int bestMove = 0;
+                long bestGames = 0;
+                double bestMean = Double.NEGATIVE_INFINITY;
+                long totalGames = 0;
+                for (Map.Entry<Integer, long[]> move : positions.get(key).entrySet()) {
+                    long games = move.getValue()[0];
+                    double mean = (double) move.getValue()[1] / games;
+                    totalGames += games;
+                    if (mean > bestMean || (mean == bestMean && games > bestGames)) {
+                        bestMove = move.getKey();
+                        bestGames = games;
+                        bestMean = mean;
+                    }
+                }
+                if (buffer.remaining() < OpeningBook.RECORD_BYTES) {
+                    flush(channel, buffer);
+                }
+                buffer.putLong(key).putShort((short) Math.round(bestMean)).put((byte) bestMove).put((byte) 0)
+                        .putInt((int) Math.min(Integer.MAX_VALUE, totalGames));
+            }
+            flush(channel, buffer);
+        }
+        return keys.length;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: java OpeningBookBuilder <book> selfplay <games> [nodes per move]");
+            System.out.println("       java OpeningBookBuilder <book> import <games.txt>");
+            return;
+        }
+        OpeningBookBuilder builder = new OpeningBookBuilder(DEFAULT_PLIES);
+        if (args[1].equals("selfplay")) {
+            long nodes = args.length > 3 ? Long.parseLong(args[3]) : 20000;
+            builder.selfPlay(Integer.parseInt(args[2]), nodes, PositionCorpus.DEFAULT_SEED);
+        } else if (args[1].equals("import")) {
+            System.out.println(builder.importGames(Paths.get(args[2])) + " games imported");
+        } else {
+            throw new IllegalArgumentException("Unknown source: " + args[1]);
+        }
+        System.out.println(builder.write(Paths.get(args[0])) + " positions written to " + args[0]);
+    }
+}
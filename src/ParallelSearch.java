@@ -0,0 +1,197 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Searches one position on several threads at once (Lazy SMP).
+ * Every thread runs its own SearchEngine on its own copy of the board, and they share a
+ * TranspositionTable so each benefits from what the others have already searched.
+ * Half of the helper threads start one ply deeper to spread the work out.
+ * The search ends when the budget runs out or the first thread finishes, and the
+ * answer comes from whichever thread completed the deepest iteration.
+ */
+public class ParallelSearch {
+    private final TranspositionTable table;
+    private final SearchEngine[] engines;
+    private final ExecutorService pool;
+
+    /**
+     * Makes a search using the given number of threads.
+     * With one thread the search runs on the calling thread and no pool is created.
+     * @param threadCount
+     * @param table shared by every thread, or null for none
+     */
+    public ParallelSearch(int threadCount, TranspositionTable table) {
+        this.table = table;
+        engines = new SearchEngine[Math.max(1, threadCount)];
+        for (int i = 0; i < engines.length; i++) {
+            engines[i] = new SearchEngine(table);
+            engines[i].setStartDepth(1 + (i & 1));
+        }
+        if (engines.length > 1) {
+            pool = Executors.newFixedThreadPool(engines.length, runnable -> {
+                Thread thread = new Thread(runnable, "search");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            pool = null;
+        }
+    }
+
+    public int getThreadCount() {
+        return engines.length;
+    }
+
+    /**
+     * Limits every thread to the given depth, or 0 for no limit
+     * @param maxDepth
+     */
+    public void setMaxDepth(int maxDepth) {
+        for (SearchEngine engine : engines) {
+            engine.setMaxDepth(maxDepth);
+        }
+    }
+
+    /**
+     * Searches the position for the given player on every thread. A budget of 0 means no limit.
+     * The node count in the result is the total over all threads.
+     * @param position
+     * @param playerID
+     * @param timeLimitMillis
+     * @param nodeLimit
+     * @return SearchResult
+     */
+    public SearchResult search(GameBoard position, int playerID, long timeLimitMillis, long nodeLimit) {
+        resetStop();
+        return searchUnlessStopped(position, playerID, timeLimitMillis, nodeLimit);
+    }
+
+    /**
+     * Searches like search, except that a stop() made since the last resetStop() still applies,
+     * so a search started on another thread can be stopped before it has even begun
+     * @param position
+     * @param playerID
+     * @param timeLimitMillis
+     * @param nodeLimit
+     * @return SearchResult
+     */
+    public SearchResult searchUnlessStopped(GameBoard position, int playerID, long timeLimitMillis, long nodeLimit) {
+        if (table != null) {
+            table.newSearch();
+        }
+        if (pool == null) {
+            return engines[0].search(position, playerID, timeLimitMillis, nodeLimit);
+        }
+        long start = System.nanoTime();
+        CompletionService<SearchResult> completion = new ExecutorCompletionService<>(pool);
+        List<Future<SearchResult>> futures = new ArrayList<>();
+        for (SearchEngine engine : engines) {
+            futures.add(completion.submit(() -> engine.search(position, playerID, timeLimitMillis, nodeLimit)));
+        }
+        SearchResult best = null;
+        long nodes = 0;
+        boolean interrupted = false;
+        try {
+            best = completion.take().get();
+            nodes += best.getNodes();
+            for (SearchEngine engine : engines) {
+                engine.stop();
+            }
+            for (int i = 1; i < futures.size(); i++) {
+                SearchResult result = completion.take().get();
+                nodes += result.getNodes();
+                if (result.getDepth() > best.getDepth()) {
+                    best = result;
+                }
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            //No engine may still be searching when this returns, or the next search would share it between two threads
+            for (SearchEngine engine : engines) {
+                engine.stop();
+            }
+            interrupted |= awaitAll(futures);
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (best == null) {
+            //Interrupted before any engine finished; the engines have stopped, so the position is free to read again
+            long moves = position.getLegalMoves(playerID);
+            int move = moves == 0 ? GameBoard.PASS : Long.numberOfTrailingZeros(moves);
+            return new SearchResult(move, 0, 0, nodes, System.nanoTime() - start);
+        }
+        return new SearchResult(best.getBestMove(), best.getScore(), best.getDepth(), nodes, System.nanoTime() - start);
+    }
+
+    /*
+     * Waits for every task to end, even through interrupts, and returns whether the thread was interrupted meanwhile
+     */
+    private static boolean awaitAll(List<Future<SearchResult>> futures) {
+        boolean interrupted = false;
+        for (Future<SearchResult> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException | CancellationException e) {
+                    break;
+                }
+            }
+        }
+        return interrupted;
+    }
+
+    /**
+     * Returns the share of beta cutoffs, over every engine and search so far, that came from the first move tried
+     * @return rate between 0 and 1
+     */
+    public double getFirstMoveCutoffRate() {
+        long cutoffs = 0;
+        long firstMoveCutoffs = 0;
+        for (SearchEngine engine : engines) {
+            cutoffs += engine.getMoveOrderer().getCutoffs();
+            firstMoveCutoffs += engine.getMoveOrderer().getFirstMoveCutoffs();
+        }
+        return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    /**
+     * Makes a search running on another thread return as soon as possible with the best move so far
+     */
+    public void stop() {
+        for (SearchEngine engine : engines) {
+            engine.stop();
+        }
+    }
+
+    /**
+     * Clears an earlier stop() so the next searchUnlessStopped runs
+     */
+    public void resetStop() {
+        for (SearchEngine engine : engines) {
+            engine.resetStop();
+        }
+    }
+
+    /**
+     * Stops the worker threads. The search cannot be used afterwards.
+     */
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+}
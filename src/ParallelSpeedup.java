@@ -0,0 +1,48 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures how ParallelSearch scales with threads by timing how long it takes to search
+ * a fixed set of mid-game positions to a fixed depth at 1, 2, 4, 8 and all available threads.
+ * Usage: java ParallelSpeedup [depth] [positions] [tableMegabytes]
+ */
+public class ParallelSpeedup {
+    private static final int OPENING_MOVES = 20;
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int positionCount = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        long tableMegabytes = args.length > 2 ? Long.parseLong(args[2]) : 256;
+        List<GameBoard> positions = PositionCorpus.randomPositions(positionCount, OPENING_MOVES, PositionCorpus.DEFAULT_SEED);
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < cores && threads <= 8; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(cores);
+
+        TranspositionTable table = new TranspositionTable(tableMegabytes);
+        System.out.println("threads,depth,positions,seconds,speedup,nodes,nodesPerSecond");
+        double baseSeconds = 0;
+        for (int threads : threadCounts) {
+            ParallelSearch search = new ParallelSearch(threads, table);
+            search.setMaxDepth(depth);
+            long nodes = 0;
+            long elapsed = 0;
+            for (GameBoard position : positions) {
+                table.clear();
+                long start = System.nanoTime();
+                SearchResult result = search.search(position, position.getSideToMove(), 0, 0);
+                elapsed += System.nanoTime() - start;
+                nodes += result.getNodes();
+            }
+            search.shutdown();
+            double seconds = elapsed / 1e9;
+            if (baseSeconds == 0) {
+                baseSeconds = seconds;
+            }
+            System.out.printf("%d,%d,%d,%.3f,%.2f,%d,%d%n", threads, depth, positions.size(), seconds,
+                    baseSeconds / seconds, nodes, (long) (nodes / seconds));
+        }
+    }
+}
@@ -0,0 +1,254 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Evaluates positions as a sum of table lookups, one per pattern instance on the board.
+ * Each pattern is a fixed list of squares (edges, corners, diagonals, 2x5 corner blocks and inner
+ * lines) placed in every orientation; the contents of an instance are read as a base-3 number
+ * (0 empty, 1 player 1, 2 player 2) that indexes a weight table for that pattern and game phase.
+ * The indexes are kept up to date from the board's change events as moves are made and unmade,
+ * so an evaluation is only the lookups.
+ *
+ * The weight tables are built at startup from a hand-written prior: corners, X and C squares next
+ * to empty corners, discs stable along an edge from an owned corner, and discs late in the game.
+ */
+public class PatternEvaluator implements BoardListener {
+    public static final int PHASES = 4;
+    private static final int[] POWERS_OF_3 = {1, 3, 9, 27, 81, 243, 729, 2187, 6561, 19683, 59049};
+
+    //Pattern squares as {row, col} in one orientation; the others come from the board symmetries
+    private static final int[][][] PATTERNS = {
+            {{0, 0}, {0, 1}, {0, 2}, {0, 3}, {0, 4}, {0, 5}, {0, 6}, {0, 7}, {1, 1}, {1, 6}},
+            {{0, 0}, {0, 1}, {0, 2}, {1, 0}, {1, 1}, {1, 2}, {2, 0}, {2, 1}, {2, 2}},
+            {{0, 0}, {0, 1}, {0, 2}, {0, 3}, {0, 4}, {1, 0}, {1, 1}, {1, 2}, {1, 3}, {1, 4}},
+            {{0, 0}, {1, 1}, {2, 2}, {3, 3}, {4, 4}, {5, 5}, {6, 6}, {7, 7}},
+            {{0, 1}, {1, 2}, {2, 3}, {3, 4}, {4, 5}, {5, 6}, {6, 7}},
+            {{0, 2}, {1, 3}, {2, 4}, {3, 5}, {4, 6}, {5, 7}},
+            {{0, 3}, {1, 4}, {2, 5}, {3, 6}, {4, 7}},
+            {{0, 3}, {1, 2}, {2, 1}, {3, 0}},
+            {{1, 0}, {1, 1}, {1, 2}, {1, 3}, {1, 4}, {1, 5}, {1, 6}, {1, 7}},
+            {{2, 0}, {2, 1}, {2, 2}, {2, 3}, {2, 4}, {2, 5}, {2, 6}, {2, 7}},
+            {{3, 0}, {3, 1}, {3, 2}, {3, 3}, {3, 4}, {3, 5}, {3, 6}, {3, 7}},
+    };
+    //The only pattern that lists a whole edge, corner to corner, in its first eight squares
+    private static final int EDGE_PATTERN = 0;
+    //Weights of the prior by phase
+    private static final int[] CORNER_WEIGHT = {18, 16, 12, 6};
+    private static final int[] X_SQUARE_WEIGHT = {-12, -10, -6, -2};
+    private static final int[] C_SQUARE_WEIGHT = {-5, -4, -3, -1};
+    private static final int[] STABLE_WEIGHT = {4, 4, 3, 2};
+    private static final int[] DISC_WEIGHT = {0, 0, 0, 1};
+
+    //WEIGHTS[phase][pattern][index]
+    private static final short[][][] WEIGHTS;
+    //Squares of every pattern instance, and which pattern each instance is
+    private static final int[][] INSTANCE_SQUARES;
+    private static final int[] INSTANCE_PATTERN;
+    //For each square, the instances it is in and its place value (power of 3) in each
+    private static final int[][] SQUARE_INSTANCES;
+    private static final int[][] SQUARE_POWERS;
+
+    static {
+        List<int[]> instances = new ArrayList<>();
+        List<Integer> instancePatterns = new ArrayList<>();
+        //Square sets of the instances of every earlier pattern; a pattern repeating one would be scored twice
+        Set<Long> earlier = new HashSet<>();
+        for (int pattern = 0; pattern < PATTERNS.length; pattern++) {
+            Set<Long> seen = new HashSet<>();
+            for (int transform = 0; transform < Symmetry.TRANSFORMS; transform++) {
+                int[] squares = new int[PATTERNS[pattern].length];
+                long set = 0L;
+                for (int i = 0; i < squares.length; i++) {
+                    int square = BitBoard.square(PATTERNS[pattern][i][0], PATTERNS[pattern][i][1]);
+                    squares[i] = Symmetry.transformSquare(square, transform);
+                    set |= 1L << squares[i];
+                }
+                if (earlier.contains(set)) {
+                    throw new IllegalStateException("Pattern " + pattern + " repeats an instance of an earlier pattern");
+                }
+                //Symmetric patterns map onto themselves; keep one instance per set of squares
+                if (seen.add(set)) {
+                    instances.add(squares);
+                    instancePatterns.add(pattern);
+                }
+            }
+            earlier.addAll(seen);
+        }
+        INSTANCE_SQUARES = instances.toArray(new int[0][]);
+        INSTANCE_PATTERN = new int[instancePatterns.size()];
+        for (int i = 0; i < INSTANCE_PATTERN.length; i++) {
+            INSTANCE_PATTERN[i] = instancePatterns.get(i);
+        }
+
+        int[] counts = new int[BitBoard.SQUARES];
+        for (int[] squares : INSTANCE_SQUARES) {
+            for (int square : squares) {
+                counts[square]++;
+            }
+        }
+        SQUARE_INSTANCES = new int[BitBoard.SQUARES][];
+        SQUARE_POWERS = new int[BitBoard.SQUARES][];
+        for (int square = 0; square < BitBoard.SQUARES; square++) {
+            SQUARE_INSTANCES[square] = new int[counts[square]];
+            SQUARE_POWERS[square] = new int[counts[square]];
+            counts[square] = 0;
+        }
+        for (int instance = 0; instance < INSTANCE_SQUARES.length; instance++) {
+            int[] squares = INSTANCE_SQUARES[instance];
+            for (int i = 0; i < squares.length; i++) {
+                int square = squares[i];
+                SQUARE_INSTANCES[square][counts[square]] = instance;
+                SQUARE_POWERS[square][counts[square]] = POWERS_OF_3[i];
+                counts[square]++;
+            }
+        }
+
+        WEIGHTS = new short[PHASES][PATTERNS.length][];
+        for (int phase = 0; phase < PHASES; phase++) {
+            for (int pattern = 0; pattern < PATTERNS.length; pattern++) {
+                int size = POWERS_OF_3[PATTERNS[pattern].length];
+                short[] table = new short[size];
+                int[] digits = new int[PATTERNS[pattern].length];
+                for (int index = 0; index < size; index++) {
+                    for (int i = 0, rest = index; i < digits.length; i++, rest /= 3) {
+                        digits[i] = rest % 3;
+                    }
+                    table[index] = (short) priorWeight(pattern, digits, phase);
+                }
+                WEIGHTS[phase][pattern] = table;
+            }
+        }
+    }
+
+    private final int[] indexes = new int[INSTANCE_SQUARES.length];
+    private GameBoard board;
+    private long player1Discs;
+    private long player2Discs;
+
+    /**
+     * Reads every pattern index from the board from scratch; after this, changes reported to
+     * boardChanged keep them current
+     * @param board
+     */
+    public void reset(GameBoard board) {
+        this.board = board;
+        player1Discs = board.getDiscs(1);
+        player2Discs = board.getDiscs(2);
+        for (int instance = 0; instance < INSTANCE_SQUARES.length; instance++) {
+            int[] squares = INSTANCE_SQUARES[instance];
+            int index = 0;
+            for (int i = 0; i < squares.length; i++) {
+                index += digit(squares[i]) * POWERS_OF_3[i];
+            }
+            indexes[instance] = index;
+        }
+    }
+
+    /**
+     * Updates the indexes of the patterns through each changed square of the board last reset from
+     * @param board
+     * @param changedSquares
+     */
+    @Override
+    public void boardChanged(ReversiBoard board, long changedSquares) {
+        long oldPlayer1Discs = player1Discs;
+        long oldPlayer2Discs = player2Discs;
+        player1Discs = this.board.getDiscs(1);
+        player2Discs = this.board.getDiscs(2);
+        while (changedSquares != 0) {
+            int square = Long.numberOfTrailingZeros(changedSquares);
+            changedSquares &= changedSquares - 1;
+            int oldDigit = (int) ((oldPlayer1Discs >>> square) & 1) | (int) ((oldPlayer2Discs >>> square) & 1) << 1;
+            int change = digit(square) - oldDigit;
+            int[] instances = SQUARE_INSTANCES[square];
+            int[] powers = SQUARE_POWERS[square];
+            for (int i = 0; i < instances.length; i++) {
+                indexes[instances[i]] += change * powers[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the pattern score of the position for the given player
+     * @param playerID
+     * @return score
+     */
+    public int evaluate(int playerID) {
+        int discs = Long.bitCount(player1Discs | player2Discs);
+        short[][] tables = WEIGHTS[Math.min(PHASES - 1, (discs - 4) * PHASES / 60)];
+        int score = 0;
+        for (int instance = 0; instance < indexes.length; instance++) {
+            score += tables[INSTANCE_PATTERN[instance]][indexes[instance]];
+        }
+        return playerID == 1 ? score : -score;
+    }
+
+    private int digit(int square) {
+        return (int) ((player1Discs >>> square) & 1) | (int) ((player2Discs >>> square) & 1) << 1;
+    }
+
+    /*
+     * The prior weight of one pattern configuration for player 1: the sum over player 1's discs
+     * minus the sum over player 2's, so swapping the colors negates it.
+     */
+    private static int priorWeight(int pattern, int[] digits, int phase) {
+        int[][] squares = PATTERNS[pattern];
+        int weight = 0;
+        for (int i = 0; i < squares.length; i++) {
+            if (digits[i] == 0) {
+                continue;
+            }
+            int sign = digits[i] == 1 ? 1 : -1;
+            int row = squares[i][0];
+            int col = squares[i][1];
+            int value = DISC_WEIGHT[phase];
+            int corner = adjacentCorner(squares, row, col);
+            if (isCorner(row, col)) {
+                value += CORNER_WEIGHT[phase] + STABLE_WEIGHT[phase] * stableRun(pattern, digits, i);
+            } else if (corner >= 0 && digits[corner] == 0) {
+                value += (row == 0 || col == 0 || row == 7 || col == 7) ? C_SQUARE_WEIGHT[phase] : X_SQUARE_WEIGHT[phase];
+            }
+            weight += sign * value;
+        }
+        return weight;
+    }
+
+    private static boolean isCorner(int row, int col) {
+        return (row == 0 || row == 7) && (col == 0 || col == 7);
+    }
+
+    /*
+     * Returns the position in the pattern of the corner next to (row, col), or -1 if the
+     * square is not next to a corner in the pattern
+     */
+    private static int adjacentCorner(int[][] squares, int row, int col) {
+        for (int i = 0; i < squares.length; i++) {
+            int cornerRow = squares[i][0];
+            int cornerCol = squares[i][1];
+            if (isCorner(cornerRow, cornerCol) && Math.abs(cornerRow - row) <= 1 && Math.abs(cornerCol - col) <= 1
+                    && (cornerRow != row || cornerCol != col)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Counts the discs of the corner's color running along the edge from the corner at position i,
+     * which can never be flipped. Only the edge pattern lists an edge in order; the 2x5 corner block
+     * starts along an edge too but turns onto the second row after five squares.
+     */
+    private static int stableRun(int pattern, int[] digits, int i) {
+        if (pattern != EDGE_PATTERN) {
+            return 0;
+        }
+        int step = i == 0 ? 1 : -1;
+        int run = 0;
+        for (int j = i + step; j >= 0 && j < 8 && digits[j] == digits[i]; j += step) {
+            run++;
+        }
+        return run;
+    }
+}
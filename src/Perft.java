@@ -0,0 +1,177 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the positions reached after exactly N plies, to check the move generator against known
+ * counts and to measure its speed. A pass counts as a ply, as in ReversiController.buttonClicked,
+ * and a finished game counts as one leaf however many plies were left.
+ * The tree is split across a fork-join pool near the root and searched sequentially below that.
+ * Usage: java Perft [depth] [moves...], e.g. java Perft 8 f4
+ *        java Perft verify [depth]
+ */
+public class Perft {
+    //Known counts from the starting position, indexed by depth
+    private static final long[] KNOWN_COUNTS = {
+            1L, 4L, 12L, 56L, 244L, 1396L, 8200L, 55092L, 390216L, 3005288L, 24571284L, 212258800L, 1939886636L
+    };
+    //Subtrees with at most this many plies left are counted on a single thread
+    private static final int SEQUENTIAL_DEPTH = 6;
+
+    private final ForkJoinPool pool;
+
+    public Perft(int threadCount) {
+        pool = new ForkJoinPool(threadCount);
+    }
+
+    /**
+     * Counts the leaves depth plies below the position on the pool's threads
+     * @param board
+     * @param depth
+     * @return leaf count
+     */
+    public long count(GameBoard board, int depth) {
+        return pool.invoke(new PerftTask(new GameBoard(board), depth));
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private static class PerftTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+        private final GameBoard board;
+        private final int depth;
+
+        PerftTask(GameBoard board, int depth) {
+            this.board = board;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth <= SEQUENTIAL_DEPTH) {
+                return countSequential(board, depth);
+            }
+            int side = board.getSideToMove();
+            long moves = board.getLegalMoves(side);
+            if (moves == 0) {
+                if (!board.areAvailableMoves(BitBoard.opponent(side))) {
+                    return 1L;
+                }
+                board.makePass(side);
+                return new PerftTask(board, depth - 1).compute();
+            }
+            List<PerftTask> children = new ArrayList<>();
+            while (moves != 0) {
+                int square = Long.numberOfTrailingZeros(moves);
+                moves &= moves - 1;
+                GameBoard child = new GameBoard(board);
+                child.makeMove(square, side);
+                children.add(new PerftTask(child, depth - 1));
+            }
+            long total = 0;
+            for (PerftTask child : invokeAll(children)) {
+                total += child.join();
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Counts the leaves depth plies below the position on the calling thread, using make/unmake
+     * @param board
+     * @param depth
+     * @return leaf count
+     */
+    public static long countSequential(GameBoard board, int depth) {
+        if (depth == 0) {
+            return 1L;
+        }
+        int side = board.getSideToMove();
+        long moves = board.getLegalMoves(side);
+        if (moves == 0) {
+            if (!board.areAvailableMoves(BitBoard.opponent(side))) {
+                return 1L;
+            }
+            board.makePass(side);
+            long count = countSequential(board, depth - 1);
+            board.unmakeMove();
+            return count;
+        }
+        if (depth == 1) {
+            return Long.bitCount(moves);
+        }
+        long total = 0;
+        while (moves != 0) {
+            int square = Long.numberOfTrailingZeros(moves);
+            moves &= moves - 1;
+            board.makeMove(square, side);
+            total += countSequential(board, depth - 1);
+            board.unmakeMove();
+        }
+        return total;
+    }
+
+    /**
+     * Plays the named moves from the starting position, passing for a side with no moves
+     * @param moves
+     * @return GameBoard
+     */
+    public static GameBoard playMoves(List<String> moves) {
+        GameBoard board = new GameBoard();
+        for (String move : moves) {
+            int side = board.getSideToMove();
+            if (!board.areAvailableMoves(side)) {
+                board.makePass(side);
+                side = board.getSideToMove();
+            }
+            int square = BitBoard.parseSquare(move);
+            if (!board.isValidMove(square / BitBoard.BOARD_WIDTH, square % BitBoard.BOARD_WIDTH, side)) {
+                throw new IllegalArgumentException("Illegal move: " + move);
+            }
+            board.makeMove(square, side);
+        }
+        return board;
+    }
+
+    /**
+     * Checks the counts from the starting position against the known ones up to the given depth
+     * @param maxDepth
+     * @return true if every count matched
+     */
+    public boolean verify(int maxDepth) {
+        boolean matched = true;
+        for (int depth = 1; depth <= maxDepth && depth < KNOWN_COUNTS.length; depth++) {
+            long count = count(new GameBoard(), depth);
+            boolean ok = count == KNOWN_COUNTS[depth];
+            System.out.println("depth " + depth + ": " + count + (ok ? " ok" : " expected " + KNOWN_COUNTS[depth]));
+            matched &= ok;
+        }
+        return matched;
+    }
+
+    public static void main(String[] args) {
+        Perft perft = new Perft(Runtime.getRuntime().availableProcessors());
+        if (args.length > 0 && args[0].equals("verify")) {
+            boolean matched = perft.verify(args.length > 1 ? Integer.parseInt(args[1]) : 10);
+            perft.shutdown();
+            System.exit(matched ? 0 : 1);
+        }
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        List<String> moves = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            moves.add(args[i]);
+        }
+        GameBoard board = playMoves(moves);
+        for (int d = 1; d <= depth; d++) {
+            long start = System.nanoTime();
+            long count = perft.count(board, d);
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("depth %d: %d leaves in %.3f s (%.0f leaves/s)%n", d, count, elapsed / 1e9,
+                    count * 1e9 / Math.max(1, elapsed));
+        }
+        perft.shutdown();
+    }
+}
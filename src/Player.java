@@ -6,7 +6,8 @@
 public interface Player {
     String getPlayerType();
     boolean moveIfValid(int row, int col);
-    void setBoard(GameBoard board);
+    int chooseMove();
+    void setBoard(ReversiBoard board);
     int getPlayerID();
     void setTileColor(String color);
     String getTileColor();
@@ -0,0 +1,110 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Repeatable sets of positions for benchmarks and measurements.
+ * Every set is generated from a fixed seed, so runs on different machines and releases see the same positions.
+ */
+public class PositionCorpus {
+    public static final long DEFAULT_SEED = 20171108L;
+
+    /**
+     * Plays the given number of random moves from the starting position, skipping games that end early
+     * @param count
+     * @param moves
+     * @param seed
+     * @return positions
+     */
+    public static List<GameBoard> randomPositions(int count, int moves, long seed) {
+        Random random = new Random(seed);
+        List<GameBoard> positions = new ArrayList<>();
+        while (positions.size() < count) {
+            GameBoard board = new GameBoard();
+            if (playRandomMoves(board, moves, random) && board.areAvailableMoves(board.getSideToMove())) {
+                positions.add(board);
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Makes mid-game positions like those reached in real games: a few random opening moves,
+     * then node-limited searching players play on to between 20 and 40 moves
+     * @param count
+     * @param seed
+     * @return positions
+     */
+    public static List<GameBoard> midGamePositions(int count, long seed) {
+        Random random = new Random(seed);
+        SearchEngine engine = new SearchEngine();
+        List<GameBoard> positions = new ArrayList<>();
+        while (positions.size() < count) {
+            GameBoard board = new GameBoard();
+            int targetMoves = 20 + random.nextInt(21);
+            boolean playing = playRandomMoves(board, 6, random);
+            while (playing && board.getMoveCount() < targetMoves) {
+                int side = board.getSideToMove();
+                if (board.areAvailableMoves(side)) {
+                    board.makeMove(engine.search(board, side, 0, 2000).getBestMove(), side);
+                } else if (board.areAvailableMoves(BitBoard.opponent(side))) {
+                    board.makePass(side);
+                } else {
+                    playing = false;
+                }
+            }
+            if (playing && board.areAvailableMoves(board.getSideToMove())) {
+                positions.add(board);
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Makes opening positions that neither side is clearly winning: random moves from the start,
+     * kept only if a node-limited search scores them within the margin for the side to move.
+     * Tournaments play each one twice with the colors swapped.
+     * @param count
+     * @param moves
+     * @param margin largest absolute search score kept
+     * @param seed
+     * @return positions
+     */
+    public static List<GameBoard> balancedOpenings(int count, int moves, int margin, long seed) {
+        Random random = new Random(seed);
+        SearchEngine engine = new SearchEngine();
+        List<GameBoard> positions = new ArrayList<>();
+        while (positions.size() < count) {
+            GameBoard board = new GameBoard();
+            if (playRandomMoves(board, moves, random) && board.areAvailableMoves(board.getSideToMove())
+                    && Math.abs(engine.search(board, board.getSideToMove(), 0, 20000).getScore()) <= margin) {
+                positions.add(board);
+            }
+        }
+        return positions;
+    }
+
+    /*
+     * Plays random moves for the side to move, passing when needed.
+     * Returns false if the game ended first.
+     */
+    private static boolean playRandomMoves(GameBoard board, int moves, Random random) {
+        for (int move = 0; move < moves; move++) {
+            int side = board.getSideToMove();
+            long legal = board.getLegalMoves(side);
+            if (legal == 0) {
+                if (!board.areAvailableMoves(BitBoard.opponent(side))) {
+                    return false;
+                }
+                board.makePass(side);
+            } else {
+                int choice = random.nextInt(Long.bitCount(legal));
+                for (int i = 0; i < choice; i++) {
+                    legal &= legal - 1;
+                }
+                board.makeMove(Long.numberOfTrailingZeros(legal), side);
+            }
+        }
+        return true;
+    }
+}
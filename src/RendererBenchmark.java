@@ -0,0 +1,101 @@
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.layout.BorderPane;
+import javafx.stage.Stage;
+import java.util.Random;
+
+/**
+ * Replays random games at maximum speed through the view, first with the button board and then
+ * with the canvas board, and prints the time between frames for each, plus the canvas repaint times.
+ * Each frame plays a fixed number of moves, so the frame times show how well a renderer keeps up.
+ * Usage: java -Djavafx.animation.fullspeed=true RendererBenchmark [frames] [moves per frame]
+ * Without fullspeed, frames are capped at the display's refresh rate and only slower frames show a difference.
+ * Measured headless on one core (OpenJFX 17 with Monocle and the software pipeline), 2000 frames of 4 moves:
+ * buttons 302 moves/s with frames at p50 12.3 ms and p99 57 ms; canvas 1379 moves/s with frames at
+ * p50 2.3 ms and p99 10 ms, of which the repaint itself takes p50 5 us and p99 87 us.
+ */
+public class RendererBenchmark extends Application {
+    private static final long SEED = 42;
+    private int frames;
+    private int movesPerFrame;
+    private ReversiView view;
+    private Stage stage;
+
+    @Override
+    public void start(Stage stage) {
+        frames = getParameters().getRaw().size() > 0 ? Integer.parseInt(getParameters().getRaw().get(0)) : 2000;
+        movesPerFrame = getParameters().getRaw().size() > 1 ? Integer.parseInt(getParameters().getRaw().get(1)) : 4;
+        this.stage = stage;
+        view = new ReversiView(new ReversiController());
+        System.out.println("renderer,frames,movesPerFrame,movesPerSecond,frame interval (us)");
+        run(false);
+    }
+
+    /*
+     * Replays on the given renderer for the set number of frames, then moves on to the canvas or exits
+     */
+    private void run(boolean canvas) {
+        view.setCanvasRenderer(canvas);
+        BorderPane root = new BorderPane(view.createBoard());
+        Scene scene = new Scene(root, 450, 450);
+        scene.getStylesheets().add("main.css");
+        stage.setScene(scene);
+        stage.show();
+        Random random = new Random(SEED);
+        LatencyHistogram intervals = new LatencyHistogram();
+        new AnimationTimer() {
+            private GameBoard board;
+            private long last;
+            private long first;
+            private int frame;
+            private long moves;
+
+            @Override
+            public void handle(long now) {
+                if(frame > 0) {
+                    intervals.record((now - last) / 1000);
+                } else {
+                    first = now;
+                }
+                last = now;
+                if(frame++ == frames) {
+                    stop();
+                    String name = canvas ? "canvas" : "buttons";
+                    System.out.printf("%s,%d,%d,%d,%s%n", name, frames, movesPerFrame,
+                            moves * 1000000000L / Math.max(1, now - first), intervals.summary("us"));
+                    if(canvas) {
+                        System.out.println("canvas repaint (us) " + view.getBoardCanvas().getFrameTimes().summary("us"));
+                        view.getBoardCanvas().dispose();
+                        Platform.exit();
+                    } else {
+                        run(true);
+                    }
+                    return;
+                }
+                for(int i = 0; i < movesPerFrame; i++) {
+                    if(board == null) {
+                        board = new GameBoard();
+                        board.setBoardListener(view::updateBoard);
+                        view.updateBoard(board, -1L);
+                    }
+                    int side = board.getSideToMove();
+                    int count = board.countLegalMoves(side);
+                    if(count > 0) {
+                        board.makeMove(board.getLegalMove(side, random.nextInt(count)), side);
+                        moves++;
+                    } else if(board.areAvailableMoves(BitBoard.opponent(side))) {
+                        board.makePass(side);
+                    } else {
+                        board = null;
+                    }
+                }
+            }
+        }.start();
+    }
+
+    public static void main(String[] args) {
+        launch(args);
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * The rules-level view of a board that the controller, view and simple players work with,
+ * addressed by row and column so it does not depend on the board size.
+ * GameBoard is the 8x8 board the search engines use; WideGameBoard plays every other size.
+ * Squares are numbered row*width+col, and getSquareCount() stands for a pass.
+ */
+public interface ReversiBoard {
+    int getWidth();
+
+    /**
+     * Returns width*width, which is one past the last square and marks a pass
+     * @return square count
+     */
+    int getSquareCount();
+
+    void setBoardListener(BoardListener listener);
+
+    /**
+     * Returns a copy with the same position and move history but no listener, for searching on another thread
+     */
+    ReversiBoard copy();
+
+    /**
+     * Returns 0 for an empty square, otherwise the ID of the player whose disc is on it
+     */
+    int getColor(int row, int col);
+
+    Tile getTile(int row, int col);
+
+    boolean isValidMove(int row, int col, int playerID);
+
+    /**
+     * Plays a legal move for the given player and flips the discs it outflanks. The other player moves next.
+     */
+    void placeTile(int row, int col, int playerID);
+
+    void makePass(int playerID);
+
+    /**
+     * Takes back the last move or pass
+     * @return the square of the move taken back, getSquareCount() for a pass, or -1 if there was nothing to take back
+     */
+    int unmakeMove();
+
+    int getMoveCount();
+
+    int getSideToMove();
+
+    boolean areAvailableMoves(int playerID);
+
+    int countLegalMoves(int playerID);
+
+    /**
+     * Returns the square of the index-th legal move of the player, counting up from square 0
+     */
+    int getLegalMove(int playerID, int index);
+
+    int getScore(int playerID);
+
+    int getEmptyCount();
+}
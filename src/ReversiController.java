@@ -1,20 +1,33 @@
 import javafx.application.Application;
 import javafx.application.Platform;
-import javafx.concurrent.Task;
 import javafx.stage.Stage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * The reversi controller communicates with the view and the
  * model (game board and players).
  */
-public class ReversiController extends Application {
-    private GameBoard gameBoard;
+public class ReversiController extends Application implements BoardListener {
+    private ReversiBoard gameBoard;
     private Player currentPlayer;
     private ReversiView reversiView;
     private Player player1;
     private Player player2;
     private int gameType = 0;
-    private final int BOARD_WIDTH=8;
+    private int boardWidth=BitBoard.BOARD_WIDTH;
+    private final long COMPUTER_TIME_LIMIT=250;
+    private final long COMPUTER_DISPLAY_DELAY=750;
+    private final long TABLE_MEGABYTES=64;
+    private final int COMPUTER_THREADS=Runtime.getRuntime().availableProcessors();
+    private TranspositionTable table;
+    private OpeningBook openingBook;
+    private final String BOOK_FILE="reversi.book";
+    private TurnScheduler turnScheduler;
+    private MoveAnalyzer analyzer;
+    private boolean analysisShown;
 
     /**
      * Start method takes in a stage where the main reversi game window will
@@ -26,6 +39,12 @@ public class ReversiController extends Application {
     @Override
     public void start(Stage stage) {
         this.reversiView = new ReversiView(this);
+        table = new TranspositionTable(TABLE_MEGABYTES);
+        ReversiMetrics.register();
+        ReversiMetrics.get().watchTable(table);
+        openingBook = loadOpeningBook();
+        turnScheduler = new TurnScheduler(Platform::runLater, COMPUTER_DISPLAY_DELAY);
+        analyzer = new MoveAnalyzer(Platform::runLater);
         player1 = new HumanPlayer(1);
         player2 = new HumanPlayer(2);
         reversiView.start(stage);
@@ -33,15 +52,24 @@ public class ReversiController extends Application {
 
     /**
      * Initializes gameboard and prepares the players to play on that board.
-     *
+     * 8x8 games use GameBoard, which the search engines need; other sizes use WideGameBoard.
      */
     public void startGame() {
-        gameBoard = new GameBoard(this);
+        if(boardWidth == BitBoard.BOARD_WIDTH) {
+            gameBoard = new GameBoard();
+        } else {
+            gameBoard = new WideGameBoard(boardWidth);
+        }
+        gameBoard.setBoardListener(this);
+        ReversiMetrics.get().gameStarted();
+        reversiView.updateBoard(gameBoard, -1L);
         player1.setBoard(gameBoard);
         player2.setBoard(gameBoard);
         currentPlayer = player1;
-        if(gameType==2){
-            buttonClicked(0,0);
+        if(currentPlayer.getPlayerType().equals("Computer")){
+            computerTurn();
+        } else {
+            startHumanTurn();
         }
     }
 
@@ -49,12 +77,12 @@ public class ReversiController extends Application {
      * Prevents players from continuing to play.
      */
     public void endGame() {
+        turnScheduler.cancel();
+        stopPondering();
+        clearAnalysis();
+        ReversiMetrics.get().gameEnded(!gameBoard.areAvailableMoves(1) && !gameBoard.areAvailableMoves(2));
         showScore();
-        for(int i = 0; i < BOARD_WIDTH; i++) {
-            for(int j = 0; j < BOARD_WIDTH; j++) {
-                gameBoard.getTile(i,j).setColor(3);
-            }
-        }
+        gameBoard = null;
     }
 
     /*
@@ -64,64 +92,168 @@ public class ReversiController extends Application {
      */
     /**
      * Creates new Human or Computer players depending on the type of game.
+     * A game in progress is ended first, so no turn is left running for the old players.
      * @param gameType
      */
     public void setGameType(int gameType) {
+        if(gameBoard != null) {
+            reversiView.resetView();
+        }
         this.gameType = gameType;
         String player1Color = player1.getTileColor();
         String player2Color = player2.getTileColor();
+        shutdownPlayer(player1);
+        shutdownPlayer(player2);
         if(this.gameType == 0){
             player1 = new HumanPlayer(1);
             player2 = new HumanPlayer(2);
         } if(this.gameType == 1){
             player1 = new HumanPlayer(1);
-            player2 = new ComputerPlayer(2);
+            player2 = createComputerPlayer(2);
         } else if(this.gameType == 2){
-            player1 = new ComputerPlayer(1);
-            player2 = new ComputerPlayer(2);
+            player1 = createComputerPlayer(1);
+            player2 = createComputerPlayer(2);
         }
         player1.setTileColor(player1Color);
         player2.setTileColor(player2Color);
+        useOpeningBook(player1);
+        useOpeningBook(player2);
     }
 
-    private void showScore() {
-        int player1Score = 0;
-        int player2Score = 0;
-        for (int i = 0; i < BOARD_WIDTH; i++) {
-            for (int j = 0; j < BOARD_WIDTH; j++) {
-                if(gameBoard.getTile(i,j).getColor()==1) {
-                    player1Score++;
-                } else if (gameBoard.getTile(i,j).getColor()==2) {
-                    player2Score++;
-                }
+    /*
+     * The search engines only play 8x8, so other board sizes get a computer that moves at random.
+     */
+    private Player createComputerPlayer(int playerID) {
+        if(boardWidth == BitBoard.BOARD_WIDTH) {
+            return new SearchPlayer(playerID, COMPUTER_TIME_LIMIT, 0, table, COMPUTER_THREADS);
+        }
+        return new ComputerPlayer(playerID);
+    }
+
+    /**
+     * Sets the width of the board for the next game, and remakes the players to suit it
+     * @param boardWidth
+     */
+    public void setBoardWidth(int boardWidth) {
+        this.boardWidth = boardWidth;
+        setGameType(gameType);
+    }
+
+    public int getBoardWidth() {
+        return boardWidth;
+    }
+
+    /*
+     * Maps the opening book next to the game if there is one; the game plays without it otherwise.
+     */
+    private OpeningBook loadOpeningBook() {
+        Path path = Paths.get(BOOK_FILE);
+        if(Files.isReadable(path)) {
+            try {
+                return new OpeningBook(path);
+            } catch (IOException e) {
+                System.err.println("Could not load opening book: " + e.getMessage());
             }
         }
+        return null;
+    }
+
+    private void useOpeningBook(Player player) {
+        if(player instanceof SearchPlayer) {
+            ((SearchPlayer) player).setOpeningBook(openingBook);
+        }
+    }
+
+    /*
+     * The player may still be finishing a cancelled turn, so its threads are shut down on the turn thread after it.
+     */
+    private void shutdownPlayer(Player player) {
+        if(player instanceof SearchPlayer) {
+            turnScheduler.execute(((SearchPlayer) player)::shutdown);
+        }
+    }
+
+    private void showScore() {
+        int player1Score = gameBoard.getScore(1);
+        int player2Score = gameBoard.getScore(2);
         reversiView.displayFinalScore(player1Score, player2Score);
     }
 
     /**
-     * Handles the button click and a player's turn.
+     * Handles the button click and a human player's turn.
+     * Clicks are ignored while a computer player is thinking.
      * @param row
      * @param col
      */
     public void buttonClicked(int row, int col) {
-        if(gameBoard != null) {
+        if(gameBoard != null && currentPlayer.getPlayerType().equals("Human")) {
+            playTurn(row, col);
+        }
+    }
+
+    /*
+     * Plays the current player's move on the given square, or passes if they have no moves,
+     * then hands a computer player its turn.
+     */
+    private void playTurn(int row, int col) {
+        if(!gameBoard.areAvailableMoves(currentPlayer.getPlayerID())) {
+            gameBoard.makePass(currentPlayer.getPlayerID());
+            ReversiMetrics.get().passPlayed();
+            changeCurrentPlayer();
             if(!gameBoard.areAvailableMoves(currentPlayer.getPlayerID())) {
-                changeCurrentPlayer();
-                if(!gameBoard.areAvailableMoves(currentPlayer.getPlayerID())) {
-                    reversiView.resetView();
-                } else {
-                    pass();
-                }
+                reversiView.resetView();
             } else {
-                if(currentPlayer.moveIfValid(row, col)) {
-                    changePlayersTurn();
-                }
-                if(currentPlayer.getPlayerType().equals("Computer")) {
-                    computerDelay();
-                }
+                pass();
+            }
+        } else {
+            if(moveIfValid(row, col)) {
+                ReversiMetrics.get().movePlayed();
+                changePlayersTurn();
+            }
+            if(currentPlayer.getPlayerType().equals("Computer")) {
+                computerTurn();
+            } else {
+                startHumanTurn();
+            }
+        }
+    }
+
+    private boolean moveIfValid(int row, int col) {
+        if(currentPlayer.getPlayerType().equals("Computer")) {
+            if(ReversiMetrics.get().isValidMove(gameBoard, row, col, currentPlayer.getPlayerID())) {
+                gameBoard.placeTile(row, col, currentPlayer.getPlayerID());
+                return true;
             }
+            return false;
+        }
+        return currentPlayer.moveIfValid(row, col);
+    }
+
+    /**
+     * Takes back moves until it is a human player's turn again, undoing at least one move.
+     * Only allowed on a human player's turn, so a pending computer move cannot land afterwards.
+     */
+    public void takeBack() {
+        if(gameBoard == null || !currentPlayer.getPlayerType().equals("Human")) {
+            return;
+        }
+        gameBoard.unmakeMove();
+        //A side to move with no moves means the move just taken back was its pass
+        while(gameBoard.getMoveCount() > 0 && (!gameBoard.areAvailableMoves(gameBoard.getSideToMove())
+                || getPlayer(gameBoard.getSideToMove()).getPlayerType().equals("Computer"))) {
+            gameBoard.unmakeMove();
+        }
+        if(currentPlayer != getPlayer(gameBoard.getSideToMove())) {
+            changePlayersTurn();
+        }
+        startHumanTurn();
+    }
+
+    private Player getPlayer(int playerID) {
+        if(playerID == 1) {
+            return player1;
         }
+        return player2;
     }
 
     private void pass() {
@@ -129,7 +261,9 @@ public class ReversiController extends Application {
         reversiView.displayPass(currentPlayer.getPlayerID());
         changeCurrentPlayer();
         if(currentPlayer.getPlayerType().equals("Computer")) {
-            computerDelay();
+            computerTurn();
+        } else {
+            startHumanTurn();
         }
     }
 
@@ -144,22 +278,74 @@ public class ReversiController extends Application {
         changeCurrentPlayer();
     }
 
-    private void computerDelay() {
-        Task<Void> task = new Task<Void>() {
-            @Override
-            protected Void call() throws Exception {
-                int iterations;
-                for (iterations = 0; iterations < 2000000000; iterations++) {
-                    if (isCancelled()) {
-                        break;
-                    }
-                }
-                Platform.runLater(() -> buttonClicked(0,0));
-                return null;
+    /*
+     * Has the computer choose its move off the FX thread on a copy of the board, then plays it once the display delay is up.
+     * A move chosen for a board that has since been replaced or ended is dropped.
+     */
+    private void computerTurn() {
+        clearAnalysis();
+        ReversiBoard board = gameBoard;
+        turnScheduler.schedule(currentPlayer, board.copy(), square -> {
+            if(gameBoard == board) {
+                playTurn(square / boardWidth, square % boardWidth);
+            }
+        });
+    }
+
+    /*
+     * Lets a searching computer opponent think on the human's time, and analyzes the human's moves
+     * if analysis is shown. The computer stops pondering by itself once its turn comes, so clicks never wait for it.
+     */
+    private void startHumanTurn() {
+        if(gameBoard == null || !currentPlayer.getPlayerType().equals("Human")) {
+            return;
+        }
+        Player opponent = getPlayer(BitBoard.opponent(currentPlayer.getPlayerID()));
+        if(opponent instanceof SearchPlayer && gameBoard instanceof GameBoard) {
+            ((SearchPlayer) opponent).startPondering((GameBoard) gameBoard);
+        }
+        analyzeHumanTurn();
+    }
+
+    private void analyzeHumanTurn() {
+        if(analysisShown && gameBoard instanceof GameBoard && currentPlayer.getPlayerType().equals("Human")) {
+            analyzer.analyze((GameBoard) gameBoard, reversiView::showAnalysis);
+        }
+    }
+
+    /**
+     * Shows or hides the scores of the human player's moves on the board, analyzed in the background.
+     * Only 8x8 games are analyzed, since the analysis uses the search engine.
+     * @param analysisShown
+     */
+    public void setAnalysisShown(boolean analysisShown) {
+        this.analysisShown = analysisShown;
+        if(analysisShown) {
+            analyzeHumanTurn();
+        } else {
+            clearAnalysis();
+        }
+    }
+
+    private void clearAnalysis() {
+        analyzer.cancel();
+        reversiView.clearAnalysis();
+    }
+
+    private void stopPondering() {
+        for(Player player : new Player[] {player1, player2}) {
+            if(player instanceof SearchPlayer) {
+                ((SearchPlayer) player).stopPondering();
             }
-        };
-        Thread thread = new Thread(task);
-        thread.start();
+        }
+    }
+
+    /**
+     * Switches between the normal display delay for computer moves and no delay at all.
+     * @param turbo
+     */
+    public void setTurbo(boolean turbo) {
+        turnScheduler.setDelayMillis(turbo ? 0 : COMPUTER_DISPLAY_DELAY);
     }
 
     /**
@@ -176,19 +362,19 @@ public class ReversiController extends Application {
     }
 
     /**
-     * Change display color for a given tile to given player's display color.
-     * @param tile
-     * @param playerID
+     * Passes the squares changed by a move on to the view in one batch.
+     * Analysis scores belong to the position before the change, so they are cleared at once.
+     * @param board
+     * @param changedSquares
      */
-    public void updateTileColor(Tile tile, int playerID) {
-        int row = tile.getRow();
-        int col = tile.getCol();
-
-        reversiView.changeButtonColor(row, col, playerID);
+    @Override
+    public void boardChanged(ReversiBoard board, long changedSquares) {
+        clearAnalysis();
+        reversiView.updateBoard(board, changedSquares);
     }
 
     /**
-     * Change given player's tile color to given color.
+     * Change given player's tile color to given color, and redraw the board in it.
      * @param playerID
      * @param newColor
      */
@@ -198,6 +384,7 @@ public class ReversiController extends Application {
         } else if(playerID == 2) {
             player2.setTileColor(newColor);
         }
+        reversiView.tileColorsChanged();
     }
 
     /**
@@ -224,6 +411,12 @@ public class ReversiController extends Application {
         }
     }
 
+    @Override
+    public void stop() {
+        turnScheduler.shutdown();
+        analyzer.shutdown();
+    }
+
     public static void main(String args[]) {
         launch(args);
     }
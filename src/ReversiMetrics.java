@@ -0,0 +1,287 @@
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms for the game loops and computer players, shared by the whole process
+ * and shown over JMX once registered, so they can be read with jconsole or any JMX client under load.
+ * Recording is a LongAdder increment or a LatencyHistogram record: no locks and no allocation,
+ * so it stays on in production. Search nodes come from each computer move's SearchResult rather than
+ * from the search itself, which keeps the engine's inner loop free of shared counters.
+ */
+public class ReversiMetrics implements ReversiMetricsMBean {
+    public static final String OBJECT_NAME = "reversi:type=Metrics";
+    private static final ReversiMetrics INSTANCE = new ReversiMetrics();
+
+    private final LongAdder gamesStarted = new LongAdder();
+    private final LongAdder gamesEnded = new LongAdder();
+    private final LongAdder gamesCompleted = new LongAdder();
+    private final LongAdder movesPlayed = new LongAdder();
+    private final LongAdder passes = new LongAdder();
+    private final LongAdder movesValidated = new LongAdder();
+    private final LongAdder illegalMoves = new LongAdder();
+    private final LatencyHistogram validationNanos = new LatencyHistogram();
+    private final LongAdder computerMoves = new LongAdder();
+    private final LongAdder searchNodes = new LongAdder();
+    private final LongAdder searchNanos = new LongAdder();
+    private final LatencyHistogram computerMoveMicros = new LatencyHistogram();
+    private final LongAdder bookHits = new LongAdder();
+    private final LongAdder bookMisses = new LongAdder();
+    private final LongAdder ponderHits = new LongAdder();
+    private final LongAdder ponderMisses = new LongAdder();
+    private final List<TranspositionTable> tables = new CopyOnWriteArrayList<>();
+    private boolean registered;
+
+    private ReversiMetrics() {
+    }
+
+    public static ReversiMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, once however often it is called.
+     * Failing to register only loses the JMX view, so it is reported and otherwise ignored.
+     */
+    public static synchronized void register() {
+        if (INSTANCE.registered) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+            INSTANCE.registered = true;
+        } catch (JMException e) {
+            System.err.println("Could not register metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Includes the given table's hits and misses in the table hit rate
+     * @param table
+     */
+    public void watchTable(TranspositionTable table) {
+        tables.add(table);
+    }
+
+    public void gameStarted() {
+        gamesStarted.increment();
+    }
+
+    /**
+     * Records that a game is no longer in progress; completed is false for games abandoned before the end
+     * @param completed
+     */
+    public void gameEnded(boolean completed) {
+        gamesEnded.increment();
+        if (completed) {
+            gamesCompleted.increment();
+        }
+    }
+
+    public void movePlayed() {
+        movesPlayed.increment();
+    }
+
+    public void passPlayed() {
+        passes.increment();
+    }
+
+    /**
+     * Checks a move the way board.isValidMove does, counting and timing the check
+     * @param board
+     * @param row
+     * @param col
+     * @param playerID
+     * @return boolean
+     */
+    public boolean isValidMove(ReversiBoard board, int row, int col, int playerID) {
+        long start = System.nanoTime();
+        boolean valid = board.isValidMove(row, col, playerID);
+        validationNanos.record(System.nanoTime() - start);
+        movesValidated.increment();
+        if (!valid) {
+            illegalMoves.increment();
+        }
+        return valid;
+    }
+
+    /**
+     * Records one move of a searching computer player: the time it took to choose and, when it was searched, the search's result
+     * @param elapsedNanos
+     * @param result null for a move that was not searched, such as a forced pass
+     */
+    public void computerMove(long elapsedNanos, SearchResult result) {
+        computerMoves.increment();
+        computerMoveMicros.record(elapsedNanos / 1000);
+        if (result != null) {
+            searchNodes.add(result.getNodes());
+            searchNanos.add(result.getElapsedNanos());
+        }
+    }
+
+    public void bookLookup(boolean hit) {
+        (hit ? bookHits : bookMisses).increment();
+    }
+
+    public void ponderOutcome(boolean hit) {
+        (hit ? ponderHits : ponderMisses).increment();
+    }
+
+    @Override
+    public long getGamesInProgress() {
+        return gamesStarted.sum() - gamesEnded.sum();
+    }
+
+    @Override
+    public long getGamesCompleted() {
+        return gamesCompleted.sum();
+    }
+
+    @Override
+    public long getMovesPlayed() {
+        return movesPlayed.sum();
+    }
+
+    @Override
+    public long getPasses() {
+        return passes.sum();
+    }
+
+    @Override
+    public long getMovesValidated() {
+        return movesValidated.sum();
+    }
+
+    @Override
+    public long getIllegalMoves() {
+        return illegalMoves.sum();
+    }
+
+    @Override
+    public double getValidationNanosMean() {
+        return validationNanos.getMean();
+    }
+
+    @Override
+    public long getValidationNanos99thPercentile() {
+        return validationNanos.getPercentile(99);
+    }
+
+    @Override
+    public long getComputerMoves() {
+        return computerMoves.sum();
+    }
+
+    @Override
+    public long getSearchNodes() {
+        return searchNodes.sum();
+    }
+
+    /**
+     * Returns the nodes searched per second of search time, over all computer moves so far
+     * @return nodes per second
+     */
+    @Override
+    public long getNodesPerSecond() {
+        long nanos = searchNanos.sum();
+        return nanos == 0 ? 0 : (long) (searchNodes.sum() * 1e9 / nanos);
+    }
+
+    @Override
+    public double getComputerMoveMicrosMean() {
+        return computerMoveMicros.getMean();
+    }
+
+    @Override
+    public long getComputerMoveMicros50thPercentile() {
+        return computerMoveMicros.getPercentile(50);
+    }
+
+    @Override
+    public long getComputerMoveMicros99thPercentile() {
+        return computerMoveMicros.getPercentile(99);
+    }
+
+    @Override
+    public long getComputerMoveMicros999thPercentile() {
+        return computerMoveMicros.getPercentile(99.9);
+    }
+
+    @Override
+    public long getComputerMoveMicrosMax() {
+        return computerMoveMicros.getMax();
+    }
+
+    /**
+     * Returns the share of probes that found an entry, over every watched transposition table
+     * @return rate between 0 and 1
+     */
+    @Override
+    public double getTableHitRate() {
+        long hits = 0;
+        long misses = 0;
+        for (TranspositionTable table : tables) {
+            hits += table.getHits();
+            misses += table.getMisses();
+        }
+        return rate(hits, misses);
+    }
+
+    @Override
+    public double getBookHitRate() {
+        return rate(bookHits.sum(), bookMisses.sum());
+    }
+
+    @Override
+    public double getPonderHitRate() {
+        return rate(ponderHits.sum(), ponderMisses.sum());
+    }
+
+    private static double rate(long hits, long misses) {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    @Override
+    public String getSummary() {
+        return String.format("games in progress %d, completed %d; moves %d, passes %d; validated %d (%d illegal, %s); "
+                        + "computer moves %d (%s), %d nodes/s; hit rates: table %.3f, book %.3f, ponder %.3f",
+                getGamesInProgress(), getGamesCompleted(), getMovesPlayed(), getPasses(), getMovesValidated(),
+                getIllegalMoves(), validationNanos.summary("ns"), getComputerMoves(), computerMoveMicros.summary("us"),
+                getNodesPerSecond(), getTableHitRate(), getBookHitRate(), getPonderHitRate());
+    }
+
+    /**
+     * Clears the counts and histograms, except games in progress, which stay accurate across a reset
+     */
+    @Override
+    public void reset() {
+        long inProgress = getGamesInProgress();
+        gamesStarted.reset();
+        gamesEnded.reset();
+        gamesStarted.add(inProgress);
+        gamesCompleted.reset();
+        movesPlayed.reset();
+        passes.reset();
+        movesValidated.reset();
+        illegalMoves.reset();
+        validationNanos.reset();
+        computerMoves.reset();
+        searchNodes.reset();
+        searchNanos.reset();
+        computerMoveMicros.reset();
+        bookHits.reset();
+        bookMisses.reset();
+        ponderHits.reset();
+        ponderMisses.reset();
+    }
+
+    @Override
+    public String toString() {
+        return getSummary();
+    }
+}
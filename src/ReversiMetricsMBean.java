@@ -0,0 +1,47 @@
+/**
+ * The attributes and operations ReversiMetrics shows over JMX, as the MBean "reversi:type=Metrics".
+ * Counts run from startup or the last reset; latencies are percentiles of lock-free histograms.
+ */
+public interface ReversiMetricsMBean {
+    long getGamesInProgress();
+
+    long getGamesCompleted();
+
+    long getMovesPlayed();
+
+    long getPasses();
+
+    long getMovesValidated();
+
+    long getIllegalMoves();
+
+    double getValidationNanosMean();
+
+    long getValidationNanos99thPercentile();
+
+    long getComputerMoves();
+
+    long getSearchNodes();
+
+    long getNodesPerSecond();
+
+    double getComputerMoveMicrosMean();
+
+    long getComputerMoveMicros50thPercentile();
+
+    long getComputerMoveMicros99thPercentile();
+
+    long getComputerMoveMicros999thPercentile();
+
+    long getComputerMoveMicrosMax();
+
+    double getTableHitRate();
+
+    double getBookHitRate();
+
+    double getPonderHitRate();
+
+    String getSummary();
+
+    void reset();
+}
@@ -0,0 +1,420 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hosts many independent games at once for clients on the local machine, each game with its own
+ * board and a computer opponent, driven over a line-based TCP protocol. One connection can run any
+ * number of games; every line names the game it is about.
+ *
+ * Client to server:
+ *   NEW <color> [computer]    start a game playing color 1 or 2 against one of the COMPUTERS,
+ *                             such as "random" or "nodes:2000" (see SimulationRunner.createPlayer)
+ *   MOVE <game> <square>      play a square such as "f5" when told it is your turn
+ *   STATS                     server counters and computer move latency percentiles
+ *   QUIT                      close the connection and abandon its games
+ * Server to client:
+ *   GAME <game> <color>       the game has started
+ *   PLAY <game> <player> <square|pass>   a move by the computer, or a forced pass by either side
+ *   TURN <game>               the client's move; it is only sent when the client has a legal move
+ *   END <game> <discs 1> <discs 2>
+ *   ERROR <game|-> <message>
+ *
+ * Each connection is served by its own thread, a virtual thread when the JVM has them (Java 21 and
+ * later) so thousands of connections cost little, and a pooled platform thread otherwise. Computer moves
+ * run on a fixed pool of engine threads, each reusing its own players for every game it serves.
+ * Clients can only pick from a fixed list of computers, so each engine thread holds at most one player
+ * per computer and color, and the engines' memory stays bounded however many games are open.
+ * Engines search a copy of the board without holding the game's lock, and lines are written to the
+ * socket outside it too, by connection threads only, so a slow client never holds up an engine.
+ * Games, moves and computer move latencies are also counted in ReversiMetrics, shown over JMX.
+ * Usage: java ReversiServer [port] [engine threads] [max games]
+ */
+public class ReversiServer {
+    public static final int DEFAULT_PORT = 7878;
+    public static final String DEFAULT_COMPUTER = "nodes:2000";
+    //The computers a client may play, kept short so a move cannot tie up an engine for long
+    public static final Set<String> COMPUTERS = new LinkedHashSet<>(Arrays.asList(
+            "random", "nodes:500", "nodes:2000", "nodes:10000", "nodes:50000", "search:100", "search:500"));
+    public static final int DEFAULT_MAX_GAMES = 10000;
+    //Exact endgame solving can take far longer than a node-limited move, so the server only solves short endgames
+    private static final int SOLVER_EMPTIES = 10;
+
+    private final int port;
+    private final int maxGames;
+    private final ExecutorService connections = newConnectionExecutor();
+    private final ExecutorService engines;
+    //Each engine thread's computer players, by description and then playerID
+    private final ThreadLocal<Map<String, Player[]>> enginePlayers = ThreadLocal.withInitial(HashMap::new);
+    private final AtomicInteger nextGameID = new AtomicInteger(1);
+    private final AtomicInteger activeGames = new AtomicInteger();
+    private final LongAdder completedGames = new LongAdder();
+    private final LongAdder computerMoves = new LongAdder();
+    private final LatencyHistogram moveLatency = new LatencyHistogram();
+    private ServerSocket serverSocket;
+
+    /**
+     * Makes a server for the given port, 0 for any free port, with the given number of engine threads
+     * @param port
+     * @param engineThreads
+     * @param maxGames the most games open at once; NEW is refused beyond that
+     */
+    public ReversiServer(int port, int engineThreads, int maxGames) {
+        this.port = port;
+        this.maxGames = maxGames;
+        this.engines = Executors.newFixedThreadPool(engineThreads, runnable -> {
+            Thread thread = new Thread(runnable, "engine");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /*
+     * Looks up Executors.newVirtualThreadPerTaskExecutor so the server still runs on JVMs without virtual threads
+     */
+    private static ExecutorService newConnectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "connection");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Starts listening on the loopback interface and accepting connections in the background
+     * @throws IOException if the port cannot be opened
+     */
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port, 1000, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    socket.setTcpNoDelay(true);
+                    connections.execute(new Connection(socket));
+                } catch (IOException e) {
+                    //Closed by shutdown
+                }
+            }
+        }, "acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Returns the port the server is listening on
+     * @return port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getActiveGames() {
+        return activeGames.get();
+    }
+
+    public long getCompletedGames() {
+        return completedGames.sum();
+    }
+
+    /**
+     * Returns the time from a computer's turn starting to its move being played, in microseconds,
+     * including any wait for a free engine
+     * @return histogram
+     */
+    public LatencyHistogram getMoveLatency() {
+        return moveLatency;
+    }
+
+    public void shutdown() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            //Already closed
+        }
+        connections.shutdownNow();
+        engines.shutdownNow();
+    }
+
+    private Player enginePlayer(String computer, int playerID) {
+        Player[] players = enginePlayers.get().computeIfAbsent(computer, spec -> new Player[3]);
+        if (players[playerID] == null) {
+            players[playerID] = SimulationRunner.createPlayer(computer, playerID);
+            if (players[playerID] instanceof SearchPlayer) {
+                ((SearchPlayer) players[playerID]).setSolverEmpties(SOLVER_EMPTIES);
+            }
+        }
+        return players[playerID];
+    }
+
+    /*
+     * One client connection and the games it has open. Lines are queued in the order they happen,
+     * under the lock of the game they belong to, and written in that order by whichever connection
+     * thread flushes next; engine threads hand their flush to a connection thread.
+     */
+    private class Connection implements Runnable {
+        private final Socket socket;
+        private final PrintWriter out;
+        private final Map<Integer, ServerGame> games = new ConcurrentHashMap<>();
+        private final Queue<String> outbox = new ConcurrentLinkedQueue<>();
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII);
+            this.out = new PrintWriter(new BufferedWriter(writer));
+        }
+
+        void queue(String line) {
+            outbox.add(line);
+        }
+
+        void send(String line) {
+            queue(line);
+            flush();
+        }
+
+        /*
+         * Writes every queued line. Blocks while the client is slow to read, so engine threads use flushLater.
+         */
+        synchronized void flush() {
+            String line;
+            while ((line = outbox.poll()) != null) {
+                out.print(line);
+                out.print('\n');
+            }
+            out.flush();
+        }
+
+        void flushLater() {
+            try {
+                connections.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                //The server is shutting down
+            }
+        }
+
+        @Override
+        public void run() {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII))) {
+                String line;
+                while ((line = in.readLine()) != null && !line.equals("QUIT")) {
+                    handle(line.trim().split("\\s+"));
+                }
+            } catch (IOException e) {
+                //The client went away
+            } finally {
+                for (ServerGame game : games.values()) {
+                    game.finish(false);
+                }
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    //Already closed
+                }
+            }
+        }
+
+        private void handle(String[] words) {
+            switch (words[0]) {
+                case "NEW":
+                    newGame(words);
+                    break;
+                case "MOVE":
+                    move(words);
+                    break;
+                case "STATS":
+                    send("STATS active=" + getActiveGames() + " completed=" + getCompletedGames()
+                            + " moves=" + computerMoves.sum() + " latency " + moveLatency.summary("us"));
+                    break;
+                default:
+                    send("ERROR - unknown command " + words[0]);
+            }
+        }
+
+        private void newGame(String[] words) {
+            int color;
+            try {
+                color = Integer.parseInt(words[1]);
+            } catch (RuntimeException e) {
+                color = 0;
+            }
+            if (color != 1 && color != 2) {
+                send("ERROR - usage: NEW <1|2> [computer]");
+                return;
+            }
+            String computer = words.length > 2 ? words[2] : DEFAULT_COMPUTER;
+            if (!COMPUTERS.contains(computer)) {
+                send("ERROR - unknown computer " + computer + ", choose one of " + String.join(" ", COMPUTERS));
+                return;
+            }
+            if (activeGames.incrementAndGet() > maxGames) {
+                activeGames.decrementAndGet();
+                send("ERROR - server full");
+                return;
+            }
+            ServerGame game = new ServerGame(nextGameID.getAndIncrement(), this, color, computer);
+            games.put(game.id, game);
+            ReversiMetrics.get().gameStarted();
+            send("GAME " + game.id + " " + color);
+            game.advance();
+            flush();
+        }
+
+        private void move(String[] words) {
+            ServerGame game;
+            int square;
+            try {
+                game = games.get(Integer.parseInt(words[1]));
+                square = BitBoard.parseSquare(words[2]);
+            } catch (RuntimeException e) {
+                send("ERROR - usage: MOVE <game> <square>");
+                return;
+            }
+            if (game == null) {
+                send("ERROR " + words[1] + " no such game");
+                return;
+            }
+            game.clientMove(square);
+            flush();
+        }
+    }
+
+    /*
+     * One game between a client and a computer. The client may only move while the game is waiting for it,
+     * so the board is changed by one thread at a time; the lock covers the hand-over between them.
+     * Lines are only queued under the lock; callers flush them once it is released.
+     */
+    private class ServerGame {
+        final int id;
+        final Connection connection;
+        final int clientColor;
+        final String computer;
+        final GameBoard board = new GameBoard();
+        boolean waitingForClient;
+        boolean finished;
+
+        ServerGame(int id, Connection connection, int clientColor, String computer) {
+            this.id = id;
+            this.connection = connection;
+            this.clientColor = clientColor;
+            this.computer = computer;
+        }
+
+        synchronized void clientMove(int square) {
+            if (finished || !waitingForClient) {
+                connection.queue("ERROR " + id + " not your turn");
+            } else if (!ReversiMetrics.get().isValidMove(board, square / BitBoard.BOARD_WIDTH, square % BitBoard.BOARD_WIDTH, clientColor)) {
+                connection.queue("ERROR " + id + " illegal move " + BitBoard.squareName(square));
+            } else {
+                waitingForClient = false;
+                board.makeMove(square, clientColor);
+                ReversiMetrics.get().movePlayed();
+                advance();
+            }
+        }
+
+        /*
+         * Plays forced passes until it is a real turn, then asks the client or hands the computer's turn to an engine
+         */
+        synchronized void advance() {
+            while (!finished) {
+                int side = board.getSideToMove();
+                if (!board.areAvailableMoves(side)) {
+                    if (!board.areAvailableMoves(BitBoard.opponent(side))) {
+                        connection.queue("END " + id + " " + board.getScore(1) + " " + board.getScore(2));
+                        finish(true);
+                        return;
+                    }
+                    board.makePass(side);
+                    ReversiMetrics.get().passPlayed();
+                    connection.queue("PLAY " + id + " " + side + " pass");
+                } else if (side == clientColor) {
+                    waitingForClient = true;
+                    connection.queue("TURN " + id);
+                    return;
+                } else {
+                    long start = System.nanoTime();
+                    engines.execute(() -> computerMove(side, start));
+                    return;
+                }
+            }
+        }
+
+        /*
+         * Searches a copy of the board without the lock, so the client can still quit meanwhile;
+         * nothing else changes the board until the move is played
+         */
+        private void computerMove(int side, long start) {
+            GameBoard position;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                position = new GameBoard(board);
+            }
+            Player player = enginePlayer(computer, side);
+            player.setBoard(position);
+            int square = player.chooseMove();
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                board.makeMove(square, side);
+                computerMoves.increment();
+                ReversiMetrics.get().movePlayed();
+                connection.queue("PLAY " + id + " " + side + " " + BitBoard.squareName(square));
+                moveLatency.record((System.nanoTime() - start) / 1000);
+                advance();
+            }
+            connection.flushLater();
+        }
+
+        synchronized void finish(boolean completed) {
+            if (!finished) {
+                finished = true;
+                connection.games.remove(id);
+                activeGames.decrementAndGet();
+                if (completed) {
+                    completedGames.increment();
+                }
+                ReversiMetrics.get().gameEnded(completed);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int engineThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int maxGames = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_GAMES;
+        ReversiServer server = new ReversiServer(port, engineThreads, maxGames);
+        ReversiMetrics.register();
+        server.start();
+        System.out.println("Serving games on port " + server.getPort() + " with " + engineThreads + " engine threads");
+        Thread.currentThread().join();
+    }
+}
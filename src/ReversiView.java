@@ -9,6 +9,7 @@ import javafx.event.EventHandler;
 import javafx.geometry.Insets;
 import javafx.geometry.Orientation;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
@@ -34,7 +35,13 @@ public class ReversiView extends Application {
     private boolean gameIsBeingPlayed = false;
     private BorderPane root;
     private Button playButton;
-    private final int BOARD_WIDTH=8;
+    private boolean analysisShown = false;
+    //Null while the board is drawn with buttons
+    private BoardCanvas boardCanvas;
+    private boolean canvasRenderer = false;
+    private ReversiBoard shownBoard;
+    private static final int[] BOARD_WIDTHS = {6, 8, 10, 12, 16};
+    private static final double BOARD_PIXELS = 400;
 
     public ReversiView(ReversiController controller) {
         this.controller = controller;
@@ -57,8 +64,7 @@ public class ReversiView extends Application {
         FlowPane flowPaneBottom = createFlowPane();
         root.setBottom(flowPaneBottom);
         //Build the "center" of BorderPane "root" -- contains the game board
-        GridPane gameBoard = createGameBoard();
-        root.setCenter(gameBoard);
+        root.setCenter(createBoard());
         //Build the "left" side of BorderPane "root"
         FlowPane flowPaneLeft = createLeftPane();
         root.setLeft(flowPaneLeft);
@@ -128,13 +134,55 @@ public class ReversiView extends Application {
         return choiceBox;
     }
 
+    /**
+     * Makes the board at the controller's width, drawn with buttons or on a canvas as chosen
+     * @return the board
+     */
+    public Node createBoard() {
+        if(boardCanvas != null) {
+            boardCanvas.dispose();
+            boardCanvas = null;
+        }
+        analysisShown = false;
+        if(canvasRenderer) {
+            int width = controller.getBoardWidth();
+            boardCanvas = new BoardCanvas(controller, width, Math.min(50, Math.floor(BOARD_PIXELS / width)));
+            BorderPane.setAlignment(boardCanvas, Pos.TOP_CENTER);
+            return boardCanvas;
+        }
+        return createGameBoard();
+    }
+
+    /**
+     * Chooses between drawing the board with one button per square and drawing it on a single canvas.
+     * Takes effect from the next createBoard.
+     * @param canvasRenderer
+     */
+    public void setCanvasRenderer(boolean canvasRenderer) {
+        this.canvasRenderer = canvasRenderer;
+    }
+
+    /**
+     * Returns the canvas the board is drawn on, or null while it is drawn with buttons
+     * @return BoardCanvas
+     */
+    public BoardCanvas getBoardCanvas() {
+        return boardCanvas;
+    }
+
     private GridPane createGameBoard() {
         GridPane pane = new GridPane();
         pane.setAlignment(Pos.TOP_CENTER);
-        this.allButtons = new Button[BOARD_WIDTH][BOARD_WIDTH];
-        for(int i=0; i<BOARD_WIDTH; i++) {
-            for(int j=0; j<BOARD_WIDTH; j++) {
+        int width = controller.getBoardWidth();
+        //Squares shrink from the stylesheet's 50px so larger boards still fit the window
+        double size = Math.min(50, Math.floor(BOARD_PIXELS / width));
+        String sizeStyle = "-fx-min-width: " + size + "px; -fx-max-width: " + size + "px; "
+                + "-fx-min-height: " + size + "px; -fx-max-height: " + size + "px;";
+        this.allButtons = new Button[width][width];
+        for(int i=0; i<width; i++) {
+            for(int j=0; j<width; j++) {
                 Button button = new Button("");
+                button.setStyle(sizeStyle);
                 int row = i;
                 int col = j;
                 pane.add(button, j, i, 1, 1);
@@ -174,6 +222,97 @@ public class ReversiView extends Application {
         }
     }
 
+    /**
+     * Changes the color of every button in the mask of changed squares in one pass,
+     * reading the new colors from the board.
+     * On an 8x8 board bit row*8+col of changedSquares corresponds to the button at (row, col);
+     * -1L, which boards of every other width always pass, redraws every button.
+     * @param board
+     * @param changedSquares
+     */
+    public void updateBoard(ReversiBoard board, long changedSquares) {
+        shownBoard = board;
+        if(boardCanvas != null) {
+            boardCanvas.updateBoard(board, changedSquares);
+            return;
+        }
+        int width = board.getWidth();
+        if(changedSquares == -1L) {
+            for(int row=0; row<width; row++) {
+                for(int col=0; col<width; col++) {
+                    changeButtonColor(row, col, board.getColor(row, col));
+                }
+            }
+            return;
+        }
+        while(changedSquares != 0) {
+            int square = Long.numberOfTrailingZeros(changedSquares);
+            int row = square / width;
+            int col = square % width;
+            changeButtonColor(row, col, board.getColor(row, col));
+            changedSquares &= changedSquares - 1;
+        }
+    }
+
+    /**
+     * Redraws every disc in the players' current tile colors, as after a change in the settings
+     */
+    public void tileColorsChanged() {
+        if(boardCanvas != null) {
+            boardCanvas.markAllDirty();
+        } else if(shownBoard != null && shownBoard.getWidth() == controller.getBoardWidth()) {
+            updateBoard(shownBoard, -1L);
+        }
+    }
+
+    /**
+     * Writes the score of every analyzed move on its square, marking the best one.
+     * Called on the FX thread with the latest analysis only, however fast the analysis runs.
+     * @param analysis
+     */
+    public void showAnalysis(MoveAnalyzer.Analysis analysis) {
+        if(boardCanvas != null) {
+            boardCanvas.setAnalysis(analysis);
+            analysisShown = true;
+            return;
+        }
+        if(allButtons.length != BitBoard.BOARD_WIDTH) {
+            return;
+        }
+        int best = analysis.getBestMove();
+        for(int square=0; square<BitBoard.SQUARES; square++) {
+            Button button = allButtons[square / BitBoard.BOARD_WIDTH][square % BitBoard.BOARD_WIDTH];
+            int score = analysis.getScore(square);
+            button.setText(score == MoveAnalyzer.NO_SCORE ? "" : MoveAnalyzer.Analysis.label(score));
+            button.getStyleClass().remove("bestMove");
+            if(square == best) {
+                button.getStyleClass().add("bestMove");
+            }
+        }
+        analysisShown = true;
+    }
+
+    /**
+     * Removes the analysis scores from the board
+     */
+    public void clearAnalysis() {
+        if(!analysisShown) {
+            return;
+        }
+        if(boardCanvas != null) {
+            boardCanvas.setAnalysis(null);
+            analysisShown = false;
+            return;
+        }
+        for(Button[] row : allButtons) {
+            for(Button button : row) {
+                button.setText("");
+                button.getStyleClass().remove("bestMove");
+            }
+        }
+        analysisShown = false;
+    }
+
     private void alertUser() {
         Alert alert = new Alert(AlertType.CONFIRMATION);
         alert.setTitle("Warning");
@@ -221,6 +360,40 @@ public class ReversiView extends Application {
 
             }
         });
+        MenuItem undo = new MenuItem("Undo Move");
+        undo.setOnAction(new EventHandler<ActionEvent>() {
+            @Override
+            public void handle(ActionEvent event) {
+                if(gameIsBeingPlayed) {
+                    controller.takeBack();
+                }
+            }
+        });
+        CheckMenuItem turbo = new CheckMenuItem("Turbo Computer Moves");
+        turbo.selectedProperty().addListener(new ChangeListener<Boolean>() {
+            @Override
+            public void changed(ObservableValue<? extends Boolean> observable, Boolean oldValue, Boolean newValue) {
+                controller.setTurbo(newValue);
+            }
+        });
+        CheckMenuItem analysis = new CheckMenuItem("Show Move Analysis");
+        analysis.selectedProperty().addListener(new ChangeListener<Boolean>() {
+            @Override
+            public void changed(ObservableValue<? extends Boolean> observable, Boolean oldValue, Boolean newValue) {
+                controller.setAnalysisShown(newValue);
+            }
+        });
+        CheckMenuItem canvas = new CheckMenuItem("Draw Board on Canvas");
+        canvas.selectedProperty().addListener(new ChangeListener<Boolean>() {
+            @Override
+            public void changed(ObservableValue<? extends Boolean> observable, Boolean oldValue, Boolean newValue) {
+                setCanvasRenderer(newValue);
+                root.setCenter(createBoard());
+                if(shownBoard != null && shownBoard.getWidth() == controller.getBoardWidth()) {
+                    updateBoard(shownBoard, -1L);
+                }
+            }
+        });
         MenuItem exit = new MenuItem("Exit");
         exit.setOnAction(new EventHandler<ActionEvent>() {
             @Override
@@ -228,12 +401,35 @@ public class ReversiView extends Application {
                 System.exit(0);
             }
         });
-        fileMenu.getItems().addAll(settings, help, exit);
-        menuBar.getMenus().addAll(fileMenu);
+        fileMenu.getItems().addAll(settings, undo, turbo, analysis, canvas, help, exit);
+        menuBar.getMenus().addAll(fileMenu, createBoardSizeMenu());
         pane.getChildren().add(menuBar);
         return pane;
     }
 
+    /*
+     * Choosing a size ends the current game and redraws the board at the new size.
+     */
+    private Menu createBoardSizeMenu() {
+        Menu sizeMenu = new Menu("Board Size");
+        ToggleGroup sizes = new ToggleGroup();
+        for(int width : BOARD_WIDTHS) {
+            RadioMenuItem item = new RadioMenuItem(width + " x " + width);
+            item.setToggleGroup(sizes);
+            item.setSelected(width == controller.getBoardWidth());
+            item.setOnAction(new EventHandler<ActionEvent>() {
+                @Override
+                public void handle(ActionEvent event) {
+                    resetView();
+                    controller.setBoardWidth(width);
+                    root.setCenter(createBoard());
+                }
+            });
+            sizeMenu.getItems().add(item);
+        }
+        return sizeMenu;
+    }
+
     private FlowPane createFlowPane() {
         FlowPane pane = new FlowPane();
         pane.getChildren().add(new Text("Select Game Mode: "));
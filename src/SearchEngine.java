@@ -0,0 +1,248 @@
+/**
+ * Negamax alpha-beta search with iterative deepening.
+ * Searches a private copy of the board using make/unmake, deepening one ply at a time
+ * until the time or node budget runs out, and answers with the best move of the
+ * last depth that finished.
+ */
+public class SearchEngine {
+    public static final int WIN_SCORE = 100000;
+    private static final int INFINITY = 1000000;
+    private static final int MOBILITY_WEIGHT = 10;
+    private static final int CHECK_INTERVAL = 1023;
+
+    private final TranspositionTable table;
+    private final PatternEvaluator evaluator = new PatternEvaluator();
+    private final MoveOrderer orderer = new MoveOrderer();
+    private GameBoard board;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private boolean aborted;
+    private volatile boolean stopRequested;
+    private int maxDepth;
+    private int startDepth = 1;
+
+    /**
+     * Makes an engine that remembers nothing between positions
+     */
+    public SearchEngine() {
+        this(null);
+    }
+
+    /**
+     * Makes an engine that caches results in the given table, which may be shared with other engines
+     * @param table
+     */
+    public SearchEngine(TranspositionTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Searches the position for the given player, stopping once either budget is used up.
+     * A budget of 0 means no limit; with neither limit the search runs to the end of the game.
+     * @param position
+     * @param playerID
+     * @param timeLimitMillis
+     * @param nodeLimit
+     * @return SearchResult
+     */
+    public SearchResult search(GameBoard position, int playerID, long timeLimitMillis, long nodeLimit) {
+        long start = System.nanoTime();
+        board = new GameBoard(position);
+        if (board.getSideToMove() != playerID) {
+            board.makePass(BitBoard.opponent(playerID));
+        }
+        evaluator.reset(board);
+        board.setBoardListener(evaluator);
+        this.nodes = 0;
+        this.nodeLimit = nodeLimit;
+        this.deadline = timeLimitMillis > 0 ? start + timeLimitMillis * 1000000L : Long.MAX_VALUE;
+        this.aborted = stopRequested;
+        orderer.newSearch();
+
+        long moves = board.getLegalMoves(playerID);
+        if (moves == 0) {
+            return new SearchResult(GameBoard.PASS, 0, 0, 0, System.nanoTime() - start);
+        }
+        int bestMove = Long.numberOfTrailingZeros(moves);
+        int bestScore = 0;
+        int completedDepth = 0;
+        int lastDepth = board.getEmptyCount();
+        if (maxDepth > 0 && maxDepth < lastDepth) {
+            lastDepth = maxDepth;
+        }
+        for (int depth = Math.min(startDepth, lastDepth); depth <= lastDepth; depth++) {
+            int depthBestMove = bestMove;
+            int alpha = -INFINITY;
+            //The previous depth's best move goes first so it survives a search cut short
+            long remaining = moves & ~(1L << bestMove);
+            int square = bestMove;
+            while (true) {
+                board.makeMove(square, playerID);
+                int score = -negamax(depth - 1, 1, -INFINITY, -alpha);
+                board.unmakeMove();
+                if (aborted) {
+                    break;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    depthBestMove = square;
+                }
+                if (remaining == 0) {
+                    break;
+                }
+                square = Long.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+            }
+            if (aborted) {
+                break;
+            }
+            bestMove = depthBestMove;
+            bestScore = alpha;
+            completedDepth = depth;
+        }
+        return new SearchResult(bestMove, bestScore, completedDepth, nodes, System.nanoTime() - start);
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        nodes++;
+        if ((nodes & CHECK_INTERVAL) == 0) {
+            checkLimits();
+        }
+        if (aborted) {
+            return 0;
+        }
+        int side = board.getSideToMove();
+        long moves = board.getLegalMoves(side);
+        if (moves == 0) {
+            if (board.getLegalMoves(BitBoard.opponent(side)) == 0) {
+                return finalScore(side);
+            }
+            board.makePass(side);
+            int score = -negamax(depth, ply + 1, -beta, -alpha);
+            board.unmakeMove();
+            return score;
+        }
+        if (depth == 0) {
+            return evaluator.evaluate(side) + MOBILITY_WEIGHT * mobility(board.getDiscs(side), board.getDiscs(BitBoard.opponent(side)));
+        }
+        int originalAlpha = alpha;
+        int hashMove = GameBoard.PASS;
+        long hash = board.hash();
+        if (table != null) {
+            long entry = table.probe(hash);
+            if (entry != 0) {
+                hashMove = TranspositionTable.getMove(entry);
+                if (TranspositionTable.getDepth(entry) >= depth) {
+                    int score = TranspositionTable.getScore(entry);
+                    int bound = TranspositionTable.getBound(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                            || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                        return score;
+                    }
+                }
+            }
+        }
+        int best = -INFINITY;
+        int bestMove = GameBoard.PASS;
+        int count = orderer.order(moves, hashMove, side, ply);
+        for (int i = 0; i < count; i++) {
+            int square = orderer.getMove(ply, i);
+            board.makeMove(square, side);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            board.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = square;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        orderer.cutoff(square, side, ply, depth, i);
+                        break;
+                    }
+                }
+            }
+        }
+        if (table != null) {
+            int bound = TranspositionTable.EXACT;
+            if (best <= originalAlpha) {
+                bound = TranspositionTable.UPPER_BOUND;
+            } else if (best >= beta) {
+                bound = TranspositionTable.LOWER_BOUND;
+            }
+            table.store(hash, depth, best, bound, bestMove);
+        }
+        return best;
+    }
+
+    /**
+     * Asks a running search to stop as soon as it next checks its limits, from any thread.
+     * Searches started while the request stands stop straight away, until resetStop is called.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    public void resetStop() {
+        stopRequested = false;
+    }
+
+    /**
+     * Returns the engine's move ordering, which also keeps its cutoff statistics
+     * @return MoveOrderer
+     */
+    public MoveOrderer getMoveOrderer() {
+        return orderer;
+    }
+
+    /**
+     * Limits iterative deepening to the given depth, or 0 for no limit
+     * @param maxDepth
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Sets the first depth iterative deepening searches, so helper threads can start deeper than the main one
+     * @param startDepth
+     */
+    public void setStartDepth(int startDepth) {
+        this.startDepth = startDepth;
+    }
+
+    private void checkLimits() {
+        if (stopRequested || Thread.currentThread().isInterrupted() || (nodeLimit > 0 && nodes >= nodeLimit) || System.nanoTime() >= deadline) {
+            aborted = true;
+        }
+    }
+
+    /*
+     * Scores a finished game so that any win beats any heuristic score,
+     * and bigger wins beat smaller ones.
+     */
+    private int finalScore(int side) {
+        int difference = board.getScore(side) - board.getScore(BitBoard.opponent(side));
+        if (difference > 0) {
+            return WIN_SCORE + difference;
+        } else if (difference < 0) {
+            return -WIN_SCORE + difference;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns how many more moves the owner of own has than the owner of opp.
+     * Mobility is not a pattern, so the engine adds it to the pattern score.
+     * @param own
+     * @param opp
+     * @return mobility difference
+     */
+    public static int mobility(long own, long opp) {
+        return Long.bitCount(BitBoard.legalMoves(own, opp)) - Long.bitCount(BitBoard.legalMoves(opp, own));
+    }
+}
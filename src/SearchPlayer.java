@@ -0,0 +1,318 @@
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A computer-controlled player that picks its moves with an alpha-beta SearchEngine
+ * under a per-move time and node budget.
+ * It can also ponder on the opponent's time: guess the opponent's reply and search the position
+ * it leads to in the background, filling the transposition table, until its own turn comes.
+ * Pondering searches on one minimum-priority thread of its own, whatever the player's thread count,
+ * so it only takes up idle time on one core while the human thinks.
+ */
+public class SearchPlayer implements Player {
+    GameBoard board;
+    int playerID;
+    String tileColor;
+    private ParallelSearch search;
+    private final TranspositionTable table;
+    private EndgameSolver solver;
+    private int solverEmpties = EndgameSolver.DEFAULT_EMPTIES;
+    private OpeningBook openingBook;
+    private final OpeningBook.Entry bookEntry = new OpeningBook.Entry();
+    private long timeLimitMillis;
+    private long nodeLimit;
+    private SearchResult lastResult;
+    //Pondering runs on its own thread with its own single-threaded search, both made when first needed
+    private static final long PREDICTION_NODES = 20000;
+    private ExecutorService ponderExecutor;
+    private ParallelSearch ponderSearch;
+    private Future<SearchResult> ponderTask;
+    //Bumped by every start and stop, so a ponder that has not started yet sees it was stopped
+    private int ponderGeneration;
+    private final Object ponderLock = new Object();
+    private volatile long ponderHash;
+
+    /**
+     * Makes a searching computer player with the given playerID.
+     * A budget of 0 means no limit.
+     * @param playerID
+     * @param timeLimitMillis
+     * @param nodeLimit
+     */
+    public SearchPlayer(int playerID, long timeLimitMillis, long nodeLimit) {
+        this(playerID, timeLimitMillis, nodeLimit, null);
+    }
+
+    /**
+     * Makes a searching computer player with the given playerID that caches results in the
+     * given transposition table, which may be shared with other players.
+     * A budget of 0 means no limit.
+     * @param playerID
+     * @param timeLimitMillis
+     * @param nodeLimit
+     * @param table
+     */
+    public SearchPlayer(int playerID, long timeLimitMillis, long nodeLimit, TranspositionTable table) {
+        this(playerID, timeLimitMillis, nodeLimit, table, 1);
+    }
+
+    /**
+     * Makes a searching computer player with the given playerID that searches on the given
+     * number of threads, sharing the given transposition table between them.
+     * A budget of 0 means no limit.
+     * @param playerID
+     * @param timeLimitMillis
+     * @param nodeLimit
+     * @param table
+     * @param threadCount
+     */
+    public SearchPlayer(int playerID, long timeLimitMillis, long nodeLimit, TranspositionTable table, int threadCount) {
+        this.playerID = playerID;
+        this.timeLimitMillis = timeLimitMillis;
+        this.nodeLimit = nodeLimit;
+        this.table = table;
+        this.search = new ParallelSearch(threadCount, table);
+        this.solver = new EndgameSolver();
+        if (playerID == 1) {
+            tileColor = "black";
+        } else if (playerID == 2) {
+            tileColor = "white";
+        }
+    }
+
+    /**
+     * Searches for the best move and plays it, flipping tiles accordingly.
+     * Returns false if there are no moves left for the player
+     * @param row
+     * @param col
+     * @return boolean if completed
+     */
+    @Override
+    public boolean moveIfValid(int row, int col) {
+        int square = chooseMove();
+        if (square == GameBoard.PASS) {
+            return false;
+        }
+        board.placeTile(square / 8, square % 8, playerID);
+        return true;
+    }
+
+    /**
+     * Searches for the best move without playing it.
+     * Safe to call off the FX thread as long as the board is not changed meanwhile, so give it a copy of a live game.
+     * @return square row*8+col, or GameBoard.PASS if there are no moves
+     */
+    @Override
+    public int chooseMove() {
+        long start = System.nanoTime();
+        lastResult = null;
+        int square = pickMove();
+        ReversiMetrics.get().computerMove(System.nanoTime() - start, lastResult);
+        return square;
+    }
+
+    private int pickMove() {
+        SearchResult pondered = finishPondering();
+        if (!board.areAvailableMoves(playerID)) {
+            return GameBoard.PASS;
+        }
+        if (openingBook != null) {
+            long start = System.nanoTime();
+            boolean found = openingBook.probe(board, playerID, bookEntry);
+            int square = bookEntry.getMove();
+            boolean hit = found && board.isValidMove(square / 8, square % 8, playerID);
+            ReversiMetrics.get().bookLookup(hit);
+            if (hit) {
+                lastResult = new SearchResult(square, bookEntry.getScore(), 0, 0, System.nanoTime() - start);
+                return square;
+            }
+        }
+        if (board.getEmptyCount() <= solverEmpties) {
+            lastResult = solver.solve(board, playerID, timeLimitMillis, false);
+        }
+        if (lastResult == null && pondered != null) {
+            //The opponent played the predicted move, so the pondering counts towards this move's budget
+            long ponderedMillis = pondered.getElapsedNanos() / 1000000L;
+            if ((timeLimitMillis > 0 && ponderedMillis >= timeLimitMillis) || (nodeLimit > 0 && pondered.getNodes() >= nodeLimit)) {
+                lastResult = pondered;
+            } else {
+                lastResult = search.search(board, playerID, timeLimitMillis > 0 ? timeLimitMillis - ponderedMillis : 0,
+                        nodeLimit > 0 ? nodeLimit - pondered.getNodes() : 0);
+            }
+        }
+        if (lastResult == null) {
+            lastResult = search.search(board, playerID, timeLimitMillis, nodeLimit);
+        }
+        return lastResult.getBestMove();
+    }
+
+    /**
+     * Starts thinking in the background while the opponent is to move in the given game: predicts the
+     * opponent's move with a short search, then searches the position after it until stopped. Copies the
+     * game first, so the opponent may move as soon as this returns. Does nothing on this player's own turn.
+     * @param game
+     */
+    public void startPondering(GameBoard game) {
+        stopPondering();
+        if (game.getSideToMove() == playerID || game.getEmptyCount() <= solverEmpties + 1) {
+            return;
+        }
+        GameBoard position = new GameBoard(game);
+        int opponent = BitBoard.opponent(playerID);
+        synchronized (ponderLock) {
+            if (ponderExecutor == null) {
+                ponderExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "ponder");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+                ponderSearch = new ParallelSearch(1, table);
+            }
+            int generation = ++ponderGeneration;
+            ponderTask = ponderExecutor.submit(() -> {
+                if (!resetStopIfCurrent(generation)) {
+                    return null;
+                }
+                if (position.areAvailableMoves(opponent)) {
+                    int predicted = ponderSearch.searchUnlessStopped(position, opponent, 0, PREDICTION_NODES).getBestMove();
+                    position.makeMove(predicted, opponent);
+                } else {
+                    position.makePass(opponent);
+                }
+                ponderHash = position.hash();
+                if (!position.areAvailableMoves(playerID) || !resetStopIfCurrent(generation)) {
+                    return null;
+                }
+                return ponderSearch.searchUnlessStopped(position, playerID, 0, 0);
+            });
+        }
+    }
+
+    /*
+     * Lets a ponder search run unless pondering has been stopped or restarted since it was submitted
+     */
+    private boolean resetStopIfCurrent(int generation) {
+        synchronized (ponderLock) {
+            if (generation != ponderGeneration) {
+                return false;
+            }
+            ponderSearch.resetStop();
+            return true;
+        }
+    }
+
+    /**
+     * Stops pondering without waiting for the background search to wind down, so it is safe to call on the FX thread
+     */
+    public void stopPondering() {
+        synchronized (ponderLock) {
+            ponderGeneration++;
+            if (ponderSearch != null) {
+                ponderSearch.stop();
+            }
+        }
+    }
+
+    /*
+     * Stops pondering and waits for it, returning its result if the board is now the position
+     * that was pondered, or null otherwise
+     */
+    private SearchResult finishPondering() {
+        Future<SearchResult> task;
+        synchronized (ponderLock) {
+            task = ponderTask;
+            ponderTask = null;
+        }
+        if (task == null) {
+            return null;
+        }
+        stopPondering();
+        try {
+            SearchResult result = task.get();
+            boolean hit = result != null && result.getDepth() > 0 && board.getSideToMove() == playerID && board.hash() == ponderHash;
+            ReversiMetrics.get().ponderOutcome(hit);
+            if (hit) {
+                return result;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        return null;
+    }
+
+    /**
+     * Sets the book to play from while the position is in it, or null for none
+     * @param openingBook
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * Sets how few empty squares there must be before moves are solved exactly instead of searched.
+     * If a solve runs out of time the move is searched as usual. 0 turns the solver off.
+     * @param solverEmpties
+     */
+    public void setSolverEmpties(int solverEmpties) {
+        this.solverEmpties = solverEmpties;
+    }
+
+    /**
+     * Returns the depth reached, score and speed of the most recent search, or null before the first move
+     * @return SearchResult
+     */
+    public SearchResult getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * Stops the player's search threads once it is no longer needed
+     */
+    public void shutdown() {
+        stopPondering();
+        synchronized (ponderLock) {
+            if (ponderExecutor != null) {
+                ponderExecutor.shutdownNow();
+            }
+        }
+        search.shutdown();
+    }
+
+    @Override
+    public String getPlayerType() {
+        return "Computer";
+    }
+
+    /**
+     * Search players only play 8x8 games, since the engines work on GameBoard's 64-bit masks
+     * @param board
+     */
+    @Override
+    public void setBoard(ReversiBoard board) {
+        if (!(board instanceof GameBoard)) {
+            throw new IllegalArgumentException("Search players only play on 8x8 boards");
+        }
+        this.board = (GameBoard) board;
+    }
+
+    @Override
+    public int getPlayerID() {
+        return playerID;
+    }
+
+    @Override
+    public void setTileColor(String color) {
+        tileColor = color;
+    }
+
+    @Override
+    public String getTileColor() {
+        return tileColor;
+    }
+
+}
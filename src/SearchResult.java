@@ -0,0 +1,79 @@
+/**
+ * The outcome of one SearchEngine search: the move chosen, its score from the mover's
+ * point of view, the deepest fully completed depth and how much work it took.
+ */
+public class SearchResult {
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long elapsedNanos;
+    private final boolean solved;
+
+    public SearchResult(int bestMove, int score, int depth, long nodes, long elapsedNanos) {
+        this(bestMove, score, depth, nodes, elapsedNanos, false);
+    }
+
+    /**
+     * Makes a result; solved results come from the EndgameSolver and score the exact final disc differential
+     * @param bestMove
+     * @param score
+     * @param depth
+     * @param nodes
+     * @param elapsedNanos
+     * @param solved
+     */
+    public SearchResult(int bestMove, int score, int depth, long nodes, long elapsedNanos, boolean solved) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+        this.solved = solved;
+    }
+
+    /**
+     * Returns the square row*8+col of the chosen move, or GameBoard.PASS if there was none
+     * @return square
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns true if the game was solved to the end, in which case the score is the exact final disc differential
+     * @return solved
+     */
+    public boolean isSolved() {
+        return solved;
+    }
+
+    public long getNodesPerSecond() {
+        if (elapsedNanos == 0) {
+            return 0;
+        }
+        return nodes * 1000000000L / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return (solved ? "solved " : "") + "depth " + depth + ", score " + score + ", " + nodes + " nodes in "
+                + (elapsedNanos / 1000000) + " ms (" + getNodesPerSecond() + " nodes/s)";
+    }
+}
@@ -0,0 +1,180 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.BufferedWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays many games at once against a ReversiServer and reports the latency of every move:
+ * the time from sending a move to hearing that it is the client's turn again (or that the game is over),
+ * which covers the computer's reply. The client side plays random legal moves, alternating colors,
+ * tracking each game on its own GameBoard.
+ * Usage: java ServerLoadGenerator [games] [connections] [computer] [engine threads] [port]
+ * starts a server in the same JVM unless a port is given, and plays every game concurrently.
+ */
+public class ServerLoadGenerator {
+    private final int port;
+    private final int games;
+    private final int connectionCount;
+    private final String computer;
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public ServerLoadGenerator(int port, int games, int connectionCount, String computer) {
+        this.port = port;
+        this.games = games;
+        this.connectionCount = connectionCount;
+        this.computer = computer;
+    }
+
+    /**
+     * Opens the connections, starts every game, and waits for them all to finish
+     * @param timeoutSeconds
+     * @return the move latencies in microseconds
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public LatencyHistogram run(long timeoutSeconds) throws IOException, InterruptedException {
+        CountDownLatch finished = new CountDownLatch(games);
+        ClientConnection[] connections = new ClientConnection[connectionCount];
+        for (int i = 0; i < connectionCount; i++) {
+            connections[i] = new ClientConnection(new Socket(InetAddress.getLoopbackAddress(), port), finished, i);
+            Thread reader = new Thread(connections[i], "load-" + i);
+            reader.setDaemon(true);
+            reader.start();
+        }
+        for (int i = 0; i < games; i++) {
+            connections[i % connectionCount].send("NEW " + (i % 2 + 1) + " " + computer);
+        }
+        boolean done = finished.await(timeoutSeconds, TimeUnit.SECONDS);
+        for (ClientConnection connection : connections) {
+            connection.close();
+        }
+        if (!done) {
+            throw new IllegalStateException((finished.getCount()) + " games did not finish in " + timeoutSeconds + " s");
+        }
+        return latency;
+    }
+
+    /*
+     * One connection's games, driven by the replies read on its own thread
+     */
+    private class ClientConnection implements Runnable {
+        private final Socket socket;
+        private final PrintWriter out;
+        private final CountDownLatch finished;
+        private final Random random;
+        private final Map<Integer, GameBoard> boards = new ConcurrentHashMap<>();
+        private final Map<Integer, Long> sentAt = new ConcurrentHashMap<>();
+
+        ClientConnection(Socket socket, CountDownLatch finished, long seed) throws IOException {
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            this.out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)));
+            this.finished = finished;
+            this.random = new Random(seed);
+        }
+
+        synchronized void send(String line) {
+            out.print(line);
+            out.print('\n');
+            out.flush();
+        }
+
+        void close() throws IOException {
+            send("QUIT");
+            socket.close();
+        }
+
+        @Override
+        public void run() {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    handle(line.split(" "));
+                }
+            } catch (IOException e) {
+                //Closed when the run is over
+            }
+        }
+
+        private void handle(String[] words) {
+            switch (words[0]) {
+                case "GAME":
+                    boards.put(Integer.parseInt(words[1]), new GameBoard());
+                    break;
+                case "PLAY": {
+                    GameBoard board = boards.get(Integer.parseInt(words[1]));
+                    int playerID = Integer.parseInt(words[2]);
+                    if (words[3].equals("pass")) {
+                        board.makePass(playerID);
+                    } else {
+                        board.makeMove(BitBoard.parseSquare(words[3]), playerID);
+                    }
+                    break;
+                }
+                case "TURN": {
+                    int id = Integer.parseInt(words[1]);
+                    recordLatency(id);
+                    GameBoard board = boards.get(id);
+                    int side = board.getSideToMove();
+                    int square = board.getLegalMove(side, random.nextInt(board.countLegalMoves(side)));
+                    board.makeMove(square, side);
+                    sentAt.put(id, System.nanoTime());
+                    send("MOVE " + id + " " + BitBoard.squareName(square));
+                    break;
+                }
+                case "END": {
+                    int id = Integer.parseInt(words[1]);
+                    recordLatency(id);
+                    boards.remove(id);
+                    finished.countDown();
+                    break;
+                }
+                default:
+                    System.err.println("Server said: " + String.join(" ", words));
+            }
+        }
+
+        private void recordLatency(int id) {
+            Long sent = sentAt.remove(id);
+            if (sent != null) {
+                latency.record((System.nanoTime() - sent) / 1000);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        String computer = args.length > 2 ? args[2] : ReversiServer.DEFAULT_COMPUTER;
+        int engineThreads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        ReversiServer server = null;
+        int port;
+        if (args.length > 4) {
+            port = Integer.parseInt(args[4]);
+        } else {
+            server = new ReversiServer(0, engineThreads, Math.max(games, ReversiServer.DEFAULT_MAX_GAMES));
+            server.start();
+            port = server.getPort();
+        }
+        System.out.println(games + " concurrent games against " + computer + " over " + connections + " connections");
+        long start = System.nanoTime();
+        LatencyHistogram latency = new ServerLoadGenerator(port, games, connections, computer).run(3600);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games, %d client moves in %.2f s (%.1f games/s)%n", games, latency.getCount(), seconds, games / seconds);
+        System.out.println("move latency " + latency.summary("us"));
+        if (server != null) {
+            System.out.println("server computer move latency " + server.getMoveLatency().summary("us"));
+            server.shutdown();
+        }
+    }
+}
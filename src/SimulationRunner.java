@@ -0,0 +1,184 @@
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the "Computer Simulation" game type without JavaFX: plays many games between two kinds of
+ * computer player across all cores and reports games per second, results and average final disc counts.
+ * Usage: java SimulationRunner [games] [player1] [player2] [threads] [record file]
+ * where a player is "random", "search:<milliseconds per move>" or "nodes:<nodes per move>".
+ * With a record file, every game is also saved there for GameRecordReader.
+ */
+public class SimulationRunner {
+    private final String player1Spec;
+    private final String player2Spec;
+    private final int threadCount;
+    private GameRecordWriter recorder;
+
+    public SimulationRunner(String player1Spec, String player2Spec, int threadCount) {
+        this.player1Spec = player1Spec;
+        this.player2Spec = player2Spec;
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Sets the writer every finished game is saved to, or null to save nothing
+     * @param recorder
+     */
+    public void setRecorder(GameRecordWriter recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Makes a computer player from a description such as "random", "search:100" or "nodes:50000".
+     * Search players made here search on one thread without a transposition table.
+     * @param spec
+     * @param playerID
+     * @return Player
+     */
+    public static Player createPlayer(String spec, int playerID) {
+        if (spec.equals("random")) {
+            return new ComputerPlayer(playerID);
+        } else if (spec.startsWith("search:")) {
+            return new SearchPlayer(playerID, Long.parseLong(spec.substring(7)), 0);
+        } else if (spec.startsWith("nodes:")) {
+            return new SearchPlayer(playerID, 0, Long.parseLong(spec.substring(6)));
+        }
+        throw new IllegalArgumentException("Unknown player: " + spec);
+    }
+
+    /**
+     * Plays the given number of games, each worker thread reusing its own pair of players
+     * @param games
+     * @return Results
+     * @throws Exception if a game fails
+     */
+    public Results run(int games) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+        AtomicInteger nextGame = new AtomicInteger();
+        List<Future<Results>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < threadCount; i++) {
+            futures.add(pool.submit(() -> {
+                Player player1 = createPlayer(player1Spec, 1);
+                Player player2 = createPlayer(player2Spec, 2);
+                Results results = new Results();
+                while (nextGame.getAndIncrement() < games) {
+                    GameBoard finished = HeadlessGame.play(player1, player2);
+                    results.add(finished);
+                    if (recorder != null) {
+                        recorder.write(finished);
+                    }
+                }
+                shutdown(player1);
+                shutdown(player2);
+                return results;
+            }));
+        }
+        Results total = new Results();
+        try {
+            for (Future<Results> future : futures) {
+                total.addAll(future.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        total.elapsedNanos = System.nanoTime() - start;
+        return total;
+    }
+
+    private static void shutdown(Player player) {
+        if (player instanceof SearchPlayer) {
+            ((SearchPlayer) player).shutdown();
+        }
+    }
+
+    /**
+     * Totals over a set of finished games, from player 1's point of view
+     */
+    public static class Results {
+        private int games;
+        private int player1Wins;
+        private int draws;
+        private int player2Wins;
+        private long player1Discs;
+        private long player2Discs;
+        private long elapsedNanos;
+
+        void add(GameBoard board) {
+            int player1Score = board.getScore(1);
+            int player2Score = board.getScore(2);
+            games++;
+            player1Discs += player1Score;
+            player2Discs += player2Score;
+            if (player1Score > player2Score) {
+                player1Wins++;
+            } else if (player2Score > player1Score) {
+                player2Wins++;
+            } else {
+                draws++;
+            }
+        }
+
+        void addAll(Results other) {
+            games += other.games;
+            player1Wins += other.player1Wins;
+            draws += other.draws;
+            player2Wins += other.player2Wins;
+            player1Discs += other.player1Discs;
+            player2Discs += other.player2Discs;
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public int getPlayer1Wins() {
+            return player1Wins;
+        }
+
+        public int getDraws() {
+            return draws;
+        }
+
+        public int getPlayer2Wins() {
+            return player2Wins;
+        }
+
+        public double getGamesPerSecond() {
+            return games * 1e9 / Math.max(1, elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d games in %.2f s (%.1f games/s)%n"
+                            + "player 1 wins %d, draws %d, player 2 wins %d%n"
+                            + "average final discs: player 1 %.2f, player 2 %.2f",
+                    games, elapsedNanos / 1e9, getGamesPerSecond(),
+                    player1Wins, draws, player2Wins,
+                    (double) player1Discs / Math.max(1, games), (double) player2Discs / Math.max(1, games));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        String player1 = args.length > 1 ? args[1] : "random";
+        String player2 = args.length > 2 ? args[2] : "random";
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        System.out.println(player1 + " vs " + player2 + " on " + threads + " threads");
+        ReversiMetrics.register();
+        SimulationRunner runner = new SimulationRunner(player1, player2, threads);
+        if (args.length > 4) {
+            try (GameRecordWriter recorder = new GameRecordWriter(Paths.get(args[4]))) {
+                runner.setRecorder(recorder);
+                System.out.println(runner.run(games));
+            }
+        } else {
+            System.out.println(runner.run(games));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * The eight symmetries of the 8x8 board, applied to whole disc masks with bit twiddling rather than
+ * square by square, and the canonical orientation of a position: the symmetry giving the smallest
+ * (player 1, player 2) masks. Positions that are symmetric copies of each other have the same canonical
+ * form, so caches, books and databases keyed on it store them once and map moves back with the inverse.
+ * Canonicalizing costs two transposes and a dozen byte and bit reversals, cheap enough for every node.
+ *
+ * Transforms, as where each maps (row, col):
+ * 0 identity, 1 mirror columns, 2 mirror rows, 3 rotate 180, 4 transpose,
+ * 5 rotate one way, 6 rotate the other way, 7 anti-transpose
+ */
+public class Symmetry {
+    public static final int TRANSFORMS = 8;
+    //SQUARE_MAPS[transform][square] is where the transform moves the square
+    private static final int[][] SQUARE_MAPS = new int[TRANSFORMS][BitBoard.SQUARES];
+
+    static {
+        int last = BitBoard.BOARD_WIDTH - 1;
+        for (int square = 0; square < BitBoard.SQUARES; square++) {
+            int row = square / BitBoard.BOARD_WIDTH;
+            int col = square % BitBoard.BOARD_WIDTH;
+            SQUARE_MAPS[0][square] = BitBoard.square(row, col);
+            SQUARE_MAPS[1][square] = BitBoard.square(row, last - col);
+            SQUARE_MAPS[2][square] = BitBoard.square(last - row, col);
+            SQUARE_MAPS[3][square] = BitBoard.square(last - row, last - col);
+            SQUARE_MAPS[4][square] = BitBoard.square(col, row);
+            SQUARE_MAPS[5][square] = BitBoard.square(col, last - row);
+            SQUARE_MAPS[6][square] = BitBoard.square(last - col, row);
+            SQUARE_MAPS[7][square] = BitBoard.square(last - col, last - row);
+        }
+    }
+
+    public static int transformSquare(int square, int transform) {
+        return SQUARE_MAPS[transform][square];
+    }
+
+    /**
+     * Returns the transform that undoes the given one; only the two rotations are not their own inverse
+     * @param transform
+     * @return inverse
+     */
+    public static int inverse(int transform) {
+        if (transform == 5) {
+            return 6;
+        } else if (transform == 6) {
+            return 5;
+        }
+        return transform;
+    }
+
+    /**
+     * Mirrors the columns, swapping bits within each byte
+     * @param discs
+     * @return mirrored discs
+     */
+    public static long mirrorColumns(long discs) {
+        discs = ((discs >>> 1) & 0x5555555555555555L) | ((discs & 0x5555555555555555L) << 1);
+        discs = ((discs >>> 2) & 0x3333333333333333L) | ((discs & 0x3333333333333333L) << 2);
+        return ((discs >>> 4) & 0x0f0f0f0f0f0f0f0fL) | ((discs & 0x0f0f0f0f0f0f0f0fL) << 4);
+    }
+
+    /**
+     * Mirrors the rows, which are the bytes of the mask
+     * @param discs
+     * @return mirrored discs
+     */
+    public static long mirrorRows(long discs) {
+        return Long.reverseBytes(discs);
+    }
+
+    /**
+     * Swaps rows and columns, moving (row, col) to (col, row), by swapping ever smaller blocks across the diagonal
+     * @param discs
+     * @return transposed discs
+     */
+    public static long transpose(long discs) {
+        long swap = 0x0f0f0f0f00000000L & (discs ^ (discs << 28));
+        discs ^= swap ^ (swap >>> 28);
+        swap = 0x3333000033330000L & (discs ^ (discs << 14));
+        discs ^= swap ^ (swap >>> 14);
+        swap = 0x5500550055005500L & (discs ^ (discs << 7));
+        return discs ^ swap ^ (swap >>> 7);
+    }
+
+    /**
+     * Applies one of the eight transforms to a disc mask
+     * @param discs
+     * @param transform
+     * @return transformed discs
+     */
+    public static long transform(long discs, int transform) {
+        switch (transform) {
+            case 0: return discs;
+            case 1: return mirrorColumns(discs);
+            case 2: return mirrorRows(discs);
+            case 3: return Long.reverse(discs);
+            case 4: return transpose(discs);
+            case 5: return mirrorColumns(transpose(discs));
+            case 6: return mirrorRows(transpose(discs));
+            default: return Long.reverse(transpose(discs));
+        }
+    }
+
+    /**
+     * Finds the canonical orientation of a position, writing its discs to canonical[0] (player 1)
+     * and canonical[1] (player 2). Ties go to the lowest numbered transform.
+     * @param player1Discs
+     * @param player2Discs
+     * @param canonical array of at least two longs
+     * @return the transform from the position to its canonical form
+     */
+    public static int canonicalize(long player1Discs, long player2Discs, long[] canonical) {
+        long transposed1 = transpose(player1Discs);
+        long transposed2 = transpose(player2Discs);
+        int best = 0;
+        long best1 = player1Discs;
+        long best2 = player2Discs;
+        for (int transform = 1; transform < TRANSFORMS; transform++) {
+            long player1;
+            long player2;
+            switch (transform) {
+                case 1: player1 = mirrorColumns(player1Discs); player2 = mirrorColumns(player2Discs); break;
+                case 2: player1 = Long.reverseBytes(player1Discs); player2 = Long.reverseBytes(player2Discs); break;
+                case 3: player1 = Long.reverse(player1Discs); player2 = Long.reverse(player2Discs); break;
+                case 4: player1 = transposed1; player2 = transposed2; break;
+                case 5: player1 = mirrorColumns(transposed1); player2 = mirrorColumns(transposed2); break;
+                case 6: player1 = Long.reverseBytes(transposed1); player2 = Long.reverseBytes(transposed2); break;
+                default: player1 = Long.reverse(transposed1); player2 = Long.reverse(transposed2); break;
+            }
+            int compare = Long.compareUnsigned(player1, best1);
+            if (compare < 0 || (compare == 0 && Long.compareUnsigned(player2, best2) < 0)) {
+                best = transform;
+                best1 = player1;
+                best2 = player2;
+            }
+        }
+        canonical[0] = best1;
+        canonical[1] = best2;
+        return best;
+    }
+
+    /**
+     * Returns the transform to the canonical orientation of a position without the canonical discs
+     * @param player1Discs
+     * @param player2Discs
+     * @return transform
+     */
+    public static int canonicalTransform(long player1Discs, long player2Discs) {
+        return canonicalize(player1Discs, player2Discs, new long[2]);
+    }
+}
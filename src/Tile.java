@@ -9,30 +9,40 @@ public class Tile {
     private int leftDiag;
     private int rightDiag;
     private final int EMPTY=0;
-    private final int MIDDLE_DIAGONAL=7;
-    private ReversiController controller;
 
     /**
-     * Makes an empty Tile that knows information about its position
+     * Makes an empty Tile that knows information about its position on an 8x8 board
      * @param rowNum
      * @param colNum
      */
     public Tile(int rowNum, int colNum) {
-        this.rowNum=rowNum;
-        this.colNum=colNum;
-        this.leftDiag=MIDDLE_DIAGONAL-colNum+rowNum;
-        this.rightDiag=colNum+rowNum;
-        this.color=EMPTY;
+        this(rowNum, colNum, 0, BitBoard.BOARD_WIDTH);
     }
 
     /**
-     * Makes an empty Tile that knows information about its position and controlller
+     * Makes a Tile that knows information about its position and color
      * @param rownum
      * @param colnum
+     * @param color
      */
-    public Tile(int rownum, int colnum, ReversiController controller){
-        this(rownum, colnum);
-        this.controller = controller;
+    public Tile(int rownum, int colnum, int color){
+        this(rownum, colnum, color, BitBoard.BOARD_WIDTH);
+    }
+
+    /**
+     * Makes a Tile that knows information about its position and color on a board of the given width.
+     * Left diagonals are numbered so the one from the top left corner to the bottom right is width-1.
+     * @param rownum
+     * @param colnum
+     * @param color
+     * @param boardWidth
+     */
+    public Tile(int rownum, int colnum, int color, int boardWidth){
+        this.rowNum=rownum;
+        this.colNum=colnum;
+        this.leftDiag=boardWidth-1-colnum+rownum;
+        this.rightDiag=colnum+rownum;
+        this.color=color;
     }
 
     public int getRow() {
@@ -53,7 +63,6 @@ public class Tile {
 
     public void setColor(int playerID) {
         this.color = playerID;
-        controller.updateTileColor(this, playerID);
     }
 
     public int getColor() {
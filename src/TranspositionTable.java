@@ -0,0 +1,162 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size table of search results keyed by position hash, stored off-heap in direct ByteBuffers
+ * so it costs the garbage collector nothing however large it is.
+ * Each 16-byte entry holds the hash XORed with the packed data, followed by the data itself.
+ * Threads read and write entries without locks; an entry torn by a concurrent write no longer
+ * XORs back to the probed hash and simply reads as a miss.
+ */
+public class TranspositionTable {
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+    private static final int ENTRY_BYTES = 16;
+    //Largest power of two a single ByteBuffer can hold
+    private static final int SEGMENT_SHIFT = 26;
+    private static final int ENTRIES_PER_SEGMENT = 1 << SEGMENT_SHIFT;
+
+    private final ByteBuffer[] segments;
+    private final long entryMask;
+    private volatile int age;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder overwrites = new LongAdder();
+
+    /**
+     * Makes a table using at most the given number of megabytes, rounded down to a power of two entries
+     * @param megabytes
+     */
+    public TranspositionTable(long megabytes) {
+        long entries = Long.highestOneBit(Math.max(1, megabytes * 1024 * 1024 / ENTRY_BYTES));
+        entryMask = entries - 1;
+        int segmentCount = (int) Math.max(1, entries >>> SEGMENT_SHIFT);
+        int segmentEntries = (int) Math.min(entries, ENTRIES_PER_SEGMENT);
+        segments = new ByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = ByteBuffer.allocateDirect(segmentEntries * ENTRY_BYTES).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Marks the start of a new search, so entries from older searches are replaced first
+     */
+    public void newSearch() {
+        age = (age + 1) & 0xff;
+    }
+
+    /**
+     * Returns the packed entry stored for the hash, or 0 if there is none.
+     * Use the static getters to unpack it.
+     * @param hash
+     * @return entry
+     */
+    public long probe(long hash) {
+        long index = hash & entryMask;
+        ByteBuffer segment = segments[(int) (index >>> SEGMENT_SHIFT)];
+        int offset = (int) (index & (ENTRIES_PER_SEGMENT - 1)) * ENTRY_BYTES;
+        long check = segment.getLong(offset);
+        long data = segment.getLong(offset + 8);
+        if (data != 0 && (check ^ data) == hash) {
+            hits.increment();
+            return data;
+        }
+        misses.increment();
+        return 0L;
+    }
+
+    /**
+     * Stores a search result for the hash, replacing the existing entry unless it is
+     * a deeper result from the current search for a different position
+     * @param hash
+     * @param depth
+     * @param score
+     * @param bound EXACT, LOWER_BOUND or UPPER_BOUND
+     * @param move square of the best move, or GameBoard.PASS
+     */
+    public void store(long hash, int depth, int score, int bound, int move) {
+        long index = hash & entryMask;
+        ByteBuffer segment = segments[(int) (index >>> SEGMENT_SHIFT)];
+        int offset = (int) (index & (ENTRIES_PER_SEGMENT - 1)) * ENTRY_BYTES;
+        long oldData = segment.getLong(offset + 8);
+        if (oldData != 0) {
+            boolean samePosition = (segment.getLong(offset) ^ oldData) == hash;
+            if (!samePosition) {
+                if (getAge(oldData) == age && getDepth(oldData) > depth) {
+                    return;
+                }
+                overwrites.increment();
+            }
+        }
+        long data = pack(depth, score, bound, move, age);
+        segment.putLong(offset, hash ^ data);
+        segment.putLong(offset + 8, data);
+        stores.increment();
+    }
+
+    /**
+     * Empties the table and resets its counters
+     */
+    public void clear() {
+        for (ByteBuffer segment : segments) {
+            for (int offset = 0; offset < segment.capacity(); offset += 8) {
+                segment.putLong(offset, 0L);
+            }
+        }
+        hits.reset();
+        misses.reset();
+        stores.reset();
+        overwrites.reset();
+    }
+
+    private static long pack(int depth, int score, int bound, int move, int age) {
+        return ((long) score << 32) | ((long) age << 24) | ((long) move << 16) | ((long) depth << 8) | bound;
+    }
+
+    public static int getBound(long entry) {
+        return (int) (entry & 0xff);
+    }
+
+    public static int getDepth(long entry) {
+        return (int) ((entry >>> 8) & 0xff);
+    }
+
+    public static int getMove(long entry) {
+        return (int) ((entry >>> 16) & 0xff);
+    }
+
+    private static int getAge(long entry) {
+        return (int) ((entry >>> 24) & 0xff);
+    }
+
+    public static int getScore(long entry) {
+        return (int) (entry >> 32);
+    }
+
+    public long getSizeBytes() {
+        return (entryMask + 1) * ENTRY_BYTES;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getStores() {
+        return stores.sum();
+    }
+
+    /**
+     * Returns how many stores replaced an entry for a different position
+     * @return overwrites
+     */
+    public long getOverwrites() {
+        return overwrites.sum();
+    }
+}
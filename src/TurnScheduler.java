@@ -0,0 +1,94 @@
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs computer players' turns in the background on a shared scheduled executor.
+ * The move is chosen off the FX thread on a copy of the board, which only the turn thread touches, then held back until the display delay has passed
+ * since the turn started, so a fast move does not appear instantly and waiting costs no CPU.
+ * The chosen move is handed over through the delivery executor (Platform::runLater in the app).
+ */
+public class TurnScheduler {
+    private final ScheduledExecutorService executor;
+    private final Executor delivery;
+    private volatile long delayMillis;
+    //Bumped by every schedule and cancel, so results of older turns are dropped
+    private volatile int turn;
+    private Future<?> pending;
+
+    /**
+     * Makes a scheduler that delivers moves through the given executor after the given delay
+     * @param delivery
+     * @param delayMillis 0 plays computer moves as soon as they are chosen
+     */
+    public TurnScheduler(Executor delivery, long delayMillis) {
+        this.delivery = delivery;
+        this.delayMillis = delayMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "computer-turn");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void setDelayMillis(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    /**
+     * Starts the given player choosing its move in the given position, cancelling any turn still pending.
+     * The position must be a copy nothing else changes, as the player searches it on the turn thread.
+     * The square chosen, or the square count for a pass, is passed to onMove unless the turn is cancelled first.
+     * @param player
+     * @param position
+     * @param onMove
+     */
+    public synchronized void schedule(Player player, ReversiBoard position, IntConsumer onMove) {
+        cancel();
+        int thisTurn = turn;
+        long start = System.nanoTime();
+        pending = executor.submit(() -> {
+            player.setBoard(position);
+            int square = player.chooseMove();
+            long elapsedMillis = (System.nanoTime() - start) / 1000000L;
+            Runnable deliver = () -> delivery.execute(() -> {
+                if (turn == thisTurn) {
+                    onMove.accept(square);
+                }
+            });
+            synchronized (this) {
+                if (turn == thisTurn && !Thread.currentThread().isInterrupted()) {
+                    pending = executor.schedule(deliver, Math.max(0, delayMillis - elapsedMillis), TimeUnit.MILLISECONDS);
+                }
+            }
+        });
+    }
+
+    /**
+     * Cancels the pending turn, interrupting the move being chosen. Its move will not be delivered.
+     */
+    public synchronized void cancel() {
+        turn++;
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+    }
+
+    /**
+     * Runs the task on the turn thread once any move still being chosen is done,
+     * so a player can be shut down without pulling its threads out from under a search
+     * @param task
+     */
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+}
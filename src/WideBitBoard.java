@@ -0,0 +1,311 @@
+import java.util.Arrays;
+
+/**
+ * A Reversi position on a square board of any even width from 4 to 16, stored as one multi-word
+ * bitset per player with square (row, col) at bit row*width+col.
+ * Legal moves are generated like BitBoard's, shifting whole bitsets one square at a time in each
+ * direction, with the shifts carried across words; each direction stops as soon as its runs of the
+ * opponent's discs end, so the cost grows with the number of words rather than the number of squares.
+ * Flips follow precomputed line tables, the squares out from each square in each direction, so
+ * a move only looks at the squares it might flip.
+ * The shift and line tables are built once per width and shared. Instances are not thread safe.
+ */
+public class WideBitBoard {
+    public static final int MIN_WIDTH=4;
+    public static final int MAX_WIDTH=16;
+    //Row and column steps of directions 0-7, in the same order as BitBoard's shifts
+    private static final int[] ROW_STEPS={0, 1, 1, 1, 0, -1, -1, -1};
+    private static final int[] COL_STEPS={1, -1, 0, 1, -1, 1, 0, -1};
+    private static final Geometry[] GEOMETRIES=new Geometry[MAX_WIDTH+1];
+
+    private final Geometry geometry;
+    private final long[] player1Discs;
+    private final long[] player2Discs;
+    //Scratch bitsets for move generation
+    private final long[] empty;
+    private final long[] frontier;
+    private final long[] shifted;
+
+    /*
+     * The tables for one board width
+     */
+    private static class Geometry {
+        final int width;
+        final int squares;
+        final int words;
+        //Bits of the board that are actual squares
+        final long[] boardMask;
+        //Shift distance of each direction and the mask of squares a shift may land on
+        final int[] shiftAmounts=new int[8];
+        final long[][] shiftMasks=new long[8][];
+        //RAYS[square][direction] lists the squares from the square to the edge, not including it
+        final int[][][] rays;
+
+        Geometry(int width) {
+            this.width=width;
+            squares=width*width;
+            words=(squares+63)/64;
+            boardMask=new long[words];
+            long[] notFirstCol=new long[words];
+            long[] notLastCol=new long[words];
+            for (int square = 0; square < squares; square++) {
+                setBit(boardMask, square);
+                if (square % width != 0) {
+                    setBit(notFirstCol, square);
+                }
+                if (square % width != width-1) {
+                    setBit(notLastCol, square);
+                }
+            }
+            for (int direction = 0; direction < 8; direction++) {
+                shiftAmounts[direction]=Math.abs(ROW_STEPS[direction]*width+COL_STEPS[direction]);
+                //A step to the right can only land off the first column, and a step to the left off the last
+                shiftMasks[direction]=COL_STEPS[direction] > 0 ? notFirstCol : COL_STEPS[direction] < 0 ? notLastCol : boardMask;
+            }
+            rays=new int[squares][8][];
+            for (int square = 0; square < squares; square++) {
+                for (int direction = 0; direction < 8; direction++) {
+                    int row=square / width + ROW_STEPS[direction];
+                    int col=square % width + COL_STEPS[direction];
+                    int length=0;
+                    int[] ray=new int[width];
+                    while (row >= 0 && row < width && col >= 0 && col < width) {
+                        ray[length++]=row*width+col;
+                        row += ROW_STEPS[direction];
+                        col += COL_STEPS[direction];
+                    }
+                    rays[square][direction]=Arrays.copyOf(ray, length);
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes the starting position for the given width, with the four middle squares filled
+     * the same way as BitBoard's
+     * @param width
+     */
+    public WideBitBoard(int width) {
+        if (width < MIN_WIDTH || width > MAX_WIDTH || width % 2 != 0) {
+            throw new IllegalArgumentException("Board width must be even and between " + MIN_WIDTH + " and " + MAX_WIDTH + ": " + width);
+        }
+        geometry=geometry(width);
+        player1Discs=new long[geometry.words];
+        player2Discs=new long[geometry.words];
+        empty=new long[geometry.words];
+        frontier=new long[geometry.words];
+        shifted=new long[geometry.words];
+        int middle=width/2;
+        setColor(square(middle-1, middle-1), 1);
+        setColor(square(middle, middle), 1);
+        setColor(square(middle-1, middle), 2);
+        setColor(square(middle, middle-1), 2);
+    }
+
+    /**
+     * Makes a copy of the given position
+     * @param other
+     */
+    public WideBitBoard(WideBitBoard other) {
+        geometry=other.geometry;
+        player1Discs=other.player1Discs.clone();
+        player2Discs=other.player2Discs.clone();
+        empty=new long[geometry.words];
+        frontier=new long[geometry.words];
+        shifted=new long[geometry.words];
+    }
+
+    private static synchronized Geometry geometry(int width) {
+        if (GEOMETRIES[width]==null) {
+            GEOMETRIES[width]=new Geometry(width);
+        }
+        return GEOMETRIES[width];
+    }
+
+    private static void setBit(long[] bits, int square) {
+        bits[square >>> 6] |= 1L << square;
+    }
+
+    private static boolean testBit(long[] bits, int square) {
+        return (bits[square >>> 6] & (1L << square)) != 0;
+    }
+
+    public int getWidth() {
+        return geometry.width;
+    }
+
+    public int getSquareCount() {
+        return geometry.squares;
+    }
+
+    /**
+     * Returns the number of longs in each bitset
+     * @return words
+     */
+    public int getWords() {
+        return geometry.words;
+    }
+
+    public int square(int row, int col) {
+        return row*geometry.width+col;
+    }
+
+    /**
+     * Returns 0 for an empty square, otherwise the ID of the player whose disc is on it
+     * @param square
+     * @return color
+     */
+    public int getColor(int square) {
+        if (testBit(player1Discs, square)) {
+            return 1;
+        } else if (testBit(player2Discs, square)) {
+            return 2;
+        }
+        return 0;
+    }
+
+    /**
+     * Sets a single square to the given color without flipping anything.
+     * A playerID of 0 empties the square.
+     * @param square
+     * @param playerID
+     */
+    public void setColor(int square, int playerID) {
+        long mask=1L << square;
+        player1Discs[square >>> 6] &= ~mask;
+        player2Discs[square >>> 6] &= ~mask;
+        if (playerID==1) {
+            player1Discs[square >>> 6] |= mask;
+        } else if (playerID==2) {
+            player2Discs[square >>> 6] |= mask;
+        }
+    }
+
+    private long[] getDiscs(int playerID) {
+        return playerID==1 ? player1Discs : player2Discs;
+    }
+
+    public int countDiscs(int playerID) {
+        long[] discs=getDiscs(playerID);
+        int count=0;
+        for (long word : discs) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public int countEmpty() {
+        return geometry.squares - countDiscs(1) - countDiscs(2);
+    }
+
+    /*
+     * Shifts every disc one square in the given direction across word boundaries,
+     * dropping discs that would leave the board. Directions 0-3 move towards higher squares.
+     */
+    private void shift(long[] in, int direction, long[] out) {
+        int amount=geometry.shiftAmounts[direction];
+        long[] mask=geometry.shiftMasks[direction];
+        int last=in.length-1;
+        if (direction < 4) {
+            for (int i = last; i > 0; i--) {
+                out[i]=((in[i] << amount) | (in[i-1] >>> (64-amount))) & mask[i];
+            }
+            out[0]=(in[0] << amount) & mask[0];
+        } else {
+            for (int i = 0; i < last; i++) {
+                out[i]=((in[i] >>> amount) | (in[i+1] << (64-amount))) & mask[i];
+            }
+            out[last]=(in[last] >>> amount) & mask[last];
+        }
+    }
+
+    /**
+     * Sets moves to the bitset of every empty square where the given player would flip at least one disc
+     * @param playerID
+     * @param moves array of getWords() longs
+     */
+    public void legalMoves(int playerID, long[] moves) {
+        long[] own=getDiscs(playerID);
+        long[] opp=getDiscs(BitBoard.opponent(playerID));
+        int words=geometry.words;
+        for (int i = 0; i < words; i++) {
+            moves[i]=0L;
+            empty[i]=~(own[i] | opp[i]) & geometry.boardMask[i];
+        }
+        for (int direction = 0; direction < 8; direction++) {
+            shift(own, direction, frontier);
+            boolean running=false;
+            for (int i = 0; i < words; i++) {
+                frontier[i] &= opp[i];
+                running |= frontier[i] != 0;
+            }
+            //Follow each run of opp's discs one square further until every run has ended
+            while (running) {
+                shift(frontier, direction, shifted);
+                running=false;
+                for (int i = 0; i < words; i++) {
+                    moves[i] |= shifted[i] & empty[i];
+                    frontier[i]=shifted[i] & opp[i];
+                    running |= frontier[i] != 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets flipped to the discs a move by the given player on the square would flip
+     * @param square
+     * @param playerID
+     * @param flipped array of getWords() longs
+     * @return the number of discs flipped, 0 if the square is occupied or the move is not legal
+     */
+    public int flips(int square, int playerID, long[] flipped) {
+        Arrays.fill(flipped, 0L);
+        long[] own=getDiscs(playerID);
+        long[] opp=getDiscs(BitBoard.opponent(playerID));
+        if (testBit(own, square) || testBit(opp, square)) {
+            return 0;
+        }
+        int count=0;
+        int[][] rays=geometry.rays[square];
+        for (int direction = 0; direction < 8; direction++) {
+            int[] ray=rays[direction];
+            int length=0;
+            while (length < ray.length && testBit(opp, ray[length])) {
+                length++;
+            }
+            if (length > 0 && length < ray.length && testBit(own, ray[length])) {
+                for (int i = 0; i < length; i++) {
+                    setBit(flipped, ray[i]);
+                }
+                count += length;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Puts a disc of the given player on the square, flipping the discs it outflanks
+     * @param square
+     * @param playerID
+     * @param flipped array of getWords() longs set to the flipped discs
+     * @return the number of discs flipped
+     */
+    public int play(int square, int playerID, long[] flipped) {
+        int count=flips(square, playerID, flipped);
+        flip(flipped);
+        setColor(square, playerID);
+        return count;
+    }
+
+    /**
+     * Swaps the owner of every disc in the bitset
+     * @param discs
+     */
+    public void flip(long[] discs) {
+        for (int i = 0; i < discs.length; i++) {
+            player1Discs[i] ^= discs[i];
+            player2Discs[i] ^= discs[i];
+        }
+    }
+}
@@ -0,0 +1,193 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks WideBitBoard move generation across board widths, to show its cost grows roughly
+ * linearly with the board area. For each width a seeded corpus of half-filled positions is timed
+ * for legal move generation and for computing the flips of every legal move, and the results are
+ * written as JSON with the cost per square alongside the cost per operation, in the same way as
+ * GameBoardBenchmark.
+ * Usage: java WideBoardBenchmark [output.json]
+ */
+public class WideBoardBenchmark {
+    private static final int[] WIDTHS = {6, 8, 10, 12, 14, 16};
+    private static final int CORPUS_SIZE = 64;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final long ROUND_NANOS = 200000000L;
+
+    private final List<WideBitBoard> corpus = new ArrayList<>();
+    private final List<Integer> sides = new ArrayList<>();
+    private final long[] scratch;
+    private final long[] flipped;
+    //Results are folded into this and printed as each width's checksum, so the JIT cannot discard the work being timed
+    private long sink;
+
+    private interface Operation {
+        /**
+         * Runs one pass of the benchmark and returns a value depending on all the work done
+         */
+        long run();
+    }
+
+    /**
+     * Makes the corpus for one width by playing random games until half the squares are filled
+     * @param width
+     * @param seed
+     */
+    public WideBoardBenchmark(int width, long seed) {
+        Random random = new Random(seed);
+        while (corpus.size() < CORPUS_SIZE) {
+            WideGameBoard game = new WideGameBoard(width);
+            while (game.getEmptyCount() > game.getSquareCount() / 2) {
+                int side = game.getSideToMove();
+                int moves = game.countLegalMoves(side);
+                if (moves == 0) {
+                    if (!game.areAvailableMoves(BitBoard.opponent(side))) {
+                        break;
+                    }
+                    game.makePass(side);
+                } else {
+                    int square = game.getLegalMove(side, random.nextInt(moves));
+                    game.placeTile(square / width, square % width, side);
+                }
+            }
+            int side = game.getSideToMove();
+            if (game.areAvailableMoves(side)) {
+                corpus.add(copy(game));
+                sides.add(side);
+            }
+        }
+        scratch = new long[corpus.get(0).getWords()];
+        flipped = new long[corpus.get(0).getWords()];
+    }
+
+    private static WideBitBoard copy(WideGameBoard game) {
+        WideBitBoard board = new WideBitBoard(game.getWidth());
+        for (int row = 0; row < game.getWidth(); row++) {
+            for (int col = 0; col < game.getWidth(); col++) {
+                board.setColor(board.square(row, col), game.getColor(row, col));
+            }
+        }
+        return board;
+    }
+
+    private long generateMoves() {
+        long moves = 0;
+        for (int i = 0; i < corpus.size(); i++) {
+            corpus.get(i).legalMoves(sides.get(i), scratch);
+            for (long word : scratch) {
+                moves ^= word;
+            }
+        }
+        return moves;
+    }
+
+    private long computeFlips() {
+        long total = 0;
+        for (int i = 0; i < corpus.size(); i++) {
+            WideBitBoard board = corpus.get(i);
+            int side = sides.get(i);
+            board.legalMoves(side, scratch);
+            for (int word = 0; word < scratch.length; word++) {
+                long moves = scratch[word];
+                while (moves != 0) {
+                    total += board.flips(word * 64 + Long.numberOfTrailingZeros(moves), side, flipped);
+                    moves &= moves - 1;
+                }
+            }
+        }
+        return total;
+    }
+
+    private int countLegalMoves() {
+        int count = 0;
+        for (int i = 0; i < corpus.size(); i++) {
+            corpus.get(i).legalMoves(sides.get(i), scratch);
+            for (long word : scratch) {
+                count += Long.bitCount(word);
+            }
+        }
+        return count;
+    }
+
+    /*
+     * Times the operation and returns the mean and standard deviation of nanoseconds per op,
+     * where one pass of the operation counts as opsPerPass ops.
+     */
+    private double[] measure(Operation operation, int opsPerPass) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            timeRound(operation, opsPerPass);
+        }
+        double[] rounds = new double[MEASURED_ROUNDS];
+        double total = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            rounds[round] = timeRound(operation, opsPerPass);
+            total += rounds[round];
+        }
+        double mean = total / MEASURED_ROUNDS;
+        double variance = 0;
+        for (double round : rounds) {
+            variance += (round - mean) * (round - mean);
+        }
+        return new double[] {mean, Math.sqrt(variance / (MEASURED_ROUNDS - 1))};
+    }
+
+    private double timeRound(Operation operation, int opsPerPass) {
+        long passes = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            sink += operation.run();
+            passes++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ROUND_NANOS);
+        return (double) elapsed / (passes * opsPerPass);
+    }
+
+    /**
+     * Benchmarks every width and writes one JSON object per benchmark and width as an array
+     * @param out
+     * @throws IOException
+     */
+    public static void runAll(Writer out) throws IOException {
+        PrintWriter writer = new PrintWriter(out);
+        writer.println("[");
+        for (int i = 0; i < WIDTHS.length; i++) {
+            int width = WIDTHS[i];
+            WideBoardBenchmark benchmark = new WideBoardBenchmark(width, PositionCorpus.DEFAULT_SEED);
+            double[] moves = benchmark.measure(benchmark::generateMoves, CORPUS_SIZE);
+            long movesChecksum = benchmark.sink;
+            benchmark.sink = 0;
+            double[] flips = benchmark.measure(benchmark::computeFlips, benchmark.countLegalMoves());
+            print(writer, "legalMoveGeneration", width, moves, movesChecksum, false);
+            print(writer, "flipComputation", width, flips, benchmark.sink, i == WIDTHS.length - 1);
+        }
+        writer.println("]");
+        writer.flush();
+    }
+
+    private static void print(PrintWriter writer, String name, int width, double[] result, long checksum, boolean last) {
+        writer.printf("  {\"benchmark\": \"%s\", \"width\": %d, \"squares\": %d, \"mode\": \"avgt\", \"unit\": \"ns/op\", "
+                        + "\"score\": %.3f, \"scoreError\": %.3f, \"nsPerSquare\": %.3f, \"rounds\": %d, "
+                        + "\"corpusSize\": %d, \"checksum\": %d, \"javaVersion\": \"%s\"}%s%n",
+                name, width, width * width, result[0], result[1], result[0] / (width * width), MEASURED_ROUNDS,
+                CORPUS_SIZE, checksum, System.getProperty("java.version"), last ? "" : ",");
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0) {
+            try (Writer out = new FileWriter(args[0])) {
+                runAll(out);
+            }
+        } else {
+            runAll(new OutputStreamWriter(System.out));
+        }
+    }
+}
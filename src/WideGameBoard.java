@@ -0,0 +1,242 @@
+/**
+ * A game of Reversi on a board of any even width from 4 to 16, backed by a WideBitBoard.
+ * Plays by the same rules and move history as GameBoard, which stays the board for 8x8 games
+ * since the search engines, hashing and opening book all depend on its 64-bit masks.
+ */
+public class WideGameBoard implements ReversiBoard {
+    private final WideBitBoard bitBoard;
+    private BoardListener listener;
+    //Legal moves for each playerID, kept until the board next changes
+    private final long[][] legalMoveCache;
+    private final int[] legalMoveCounts;
+    private final boolean[] legalMovesCached;
+    //Undo stack of every move and pass played, preallocated for the longest possible game
+    private final int[] historySquares;
+    private final int[] historyPlayers;
+    private final long[][] historyFlips;
+    private int historySize;
+    private int sideToMove;
+
+    /**
+     * Makes a board of the given width in the starting position
+     * @param width
+     */
+    public WideGameBoard(int width) {
+        bitBoard = new WideBitBoard(width);
+        int words = bitBoard.getWords();
+        legalMoveCache = new long[3][words];
+        legalMoveCounts = new int[3];
+        legalMovesCached = new boolean[3];
+        //Every empty square is filled once, with at most one pass before each move and one at the end
+        int maxHistory = 2 * bitBoard.getSquareCount();
+        historySquares = new int[maxHistory];
+        historyPlayers = new int[maxHistory];
+        historyFlips = new long[maxHistory][words];
+        sideToMove = 1;
+    }
+
+    /**
+     * Makes a copy of the given board with the same position and move history but no listener
+     * @param other
+     */
+    public WideGameBoard(WideGameBoard other) {
+        bitBoard = new WideBitBoard(other.bitBoard);
+        int words = bitBoard.getWords();
+        legalMoveCache = new long[3][words];
+        legalMoveCounts = new int[3];
+        legalMovesCached = new boolean[3];
+        historySquares = other.historySquares.clone();
+        historyPlayers = other.historyPlayers.clone();
+        historyFlips = new long[historySquares.length][];
+        for (int i = 0; i < historyFlips.length; i++) {
+            historyFlips[i] = other.historyFlips[i].clone();
+        }
+        historySize = other.historySize;
+        sideToMove = other.sideToMove;
+    }
+
+    public ReversiBoard copy() {
+        return new WideGameBoard(this);
+    }
+
+    public int getWidth() {
+        return bitBoard.getWidth();
+    }
+
+    public int getSquareCount() {
+        return bitBoard.getSquareCount();
+    }
+
+    /**
+     * Sets the listener told about every change to the board, or null for none.
+     * Changes are reported as -1L since the squares do not fit in a 64-bit mask.
+     * @param listener
+     */
+    public void setBoardListener(BoardListener listener) {
+        this.listener = listener;
+    }
+
+    private long[] getLegalMoves(int playerID) {
+        if (!legalMovesCached[playerID]) {
+            long[] moves = legalMoveCache[playerID];
+            bitBoard.legalMoves(playerID, moves);
+            int count = 0;
+            for (long word : moves) {
+                count += Long.bitCount(word);
+            }
+            legalMoveCounts[playerID] = count;
+            legalMovesCached[playerID] = true;
+        }
+        return legalMoveCache[playerID];
+    }
+
+    public boolean isValidMove(int row, int col, int playerID) {
+        int square = bitBoard.square(row, col);
+        return (getLegalMoves(playerID)[square >>> 6] & (1L << square)) != 0;
+    }
+
+    /**
+     * Plays the given player on (row, col), flipping every disc it outflanks,
+     * and records the move on the undo stack. The other player moves next.
+     * @param row
+     * @param col
+     * @param playerID
+     * @throws IllegalArgumentException if the move is not legal
+     */
+    public void placeTile(int row, int col, int playerID) {
+        checkHistorySpace();
+        int width = getWidth();
+        int square = bitBoard.square(row, col);
+        long[] flipped = historyFlips[historySize];
+        //Flips are 0 for occupied squares too, so this catches every illegal move
+        if (row < 0 || row >= width || col < 0 || col >= width || bitBoard.flips(square, playerID, flipped) == 0) {
+            throw new IllegalArgumentException("Illegal move (" + row + ", " + col + ") for player " + playerID);
+        }
+        bitBoard.flip(flipped);
+        bitBoard.setColor(square, playerID);
+        pushHistory(square, playerID);
+        if (listener != null) {
+            listener.boardChanged(this, -1L);
+        }
+    }
+
+    /**
+     * Records that the given player had no moves. The other player moves next.
+     * @param playerID
+     */
+    public void makePass(int playerID) {
+        checkHistorySpace();
+        pushHistory(getSquareCount(), playerID);
+    }
+
+    private void checkHistorySpace() {
+        if (historySize == historySquares.length) {
+            throw new IllegalStateException("Move history is full after " + historySquares.length + " moves and passes");
+        }
+    }
+
+    private void pushHistory(int square, int playerID) {
+        historySquares[historySize] = square;
+        historyPlayers[historySize] = playerID;
+        historySize++;
+        sideToMove = BitBoard.opponent(playerID);
+        clearMoveCache();
+    }
+
+    /**
+     * Takes back the last move or pass, restoring the board and side to move exactly as they were
+     * @return the square of the move taken back, getSquareCount() for a pass, or -1 if there was nothing to take back
+     */
+    public int unmakeMove() {
+        if (historySize == 0) {
+            return -1;
+        }
+        historySize--;
+        int square = historySquares[historySize];
+        sideToMove = historyPlayers[historySize];
+        clearMoveCache();
+        if (square != getSquareCount()) {
+            bitBoard.flip(historyFlips[historySize]);
+            bitBoard.setColor(square, 0);
+            if (listener != null) {
+                listener.boardChanged(this, -1L);
+            }
+        }
+        return square;
+    }
+
+    private void clearMoveCache() {
+        legalMovesCached[1] = false;
+        legalMovesCached[2] = false;
+    }
+
+    public int getMoveCount() {
+        return historySize;
+    }
+
+    /**
+     * Returns the square of the given move in the history, or getSquareCount() for a pass
+     * @param index
+     * @return square
+     */
+    public int getMove(int index) {
+        return historySquares[index];
+    }
+
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    public boolean areAvailableMoves(int playerID) {
+        return countLegalMoves(playerID) != 0;
+    }
+
+    public int countLegalMoves(int playerID) {
+        getLegalMoves(playerID);
+        return legalMoveCounts[playerID];
+    }
+
+    /**
+     * Returns the square of the index-th legal move of the given player, counting up from square 0
+     * @param playerID
+     * @param index
+     * @return square
+     */
+    public int getLegalMove(int playerID, int index) {
+        long[] moves = getLegalMoves(playerID);
+        for (int i = 0; i < moves.length; i++) {
+            int count = Long.bitCount(moves[i]);
+            if (index < count) {
+                long word = moves[i];
+                for (int j = 0; j < index; j++) {
+                    word &= word - 1;
+                }
+                return i * 64 + Long.numberOfTrailingZeros(word);
+            }
+            index -= count;
+        }
+        throw new IllegalArgumentException("Player " + playerID + " has no legal move " + index);
+    }
+
+    public int getColor(int row, int col) {
+        return bitBoard.getColor(bitBoard.square(row, col));
+    }
+
+    public int getScore(int playerID) {
+        return bitBoard.countDiscs(playerID);
+    }
+
+    public int getEmptyCount() {
+        return bitBoard.countEmpty();
+    }
+
+    /**
+     * Returns a snapshot of the given square; changing it does not change the board
+     * @param row
+     * @param col
+     * @return Tile
+     */
+    public Tile getTile(int row, int col) {
+        return new Tile(row, col, getColor(row, col), getWidth());
+    }
+}
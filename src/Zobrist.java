@@ -0,0 +1,71 @@
+/**
+ * Random 64-bit keys for hashing Reversi positions.
+ * A position's hash is the XOR of the key of every disc on the board,
+ * plus the side-to-move key when it is player 2's turn.
+ * The keys come from a fixed seed so hashes are the same on every run.
+ */
+public class Zobrist {
+    private static final long[][] DISC_KEYS = new long[3][BitBoard.SQUARES];
+    //XOR of both players' keys for a square, which turns one player's disc into the other's
+    private static final long[] FLIP_KEYS = new long[BitBoard.SQUARES];
+    public static final long SIDE_KEY;
+
+    static {
+        long seed = 0x5eed0f0e11011eL;
+        for (int playerID = 1; playerID <= 2; playerID++) {
+            for (int square = 0; square < BitBoard.SQUARES; square++) {
+                seed += 0x9e3779b97f4a7c15L;
+                DISC_KEYS[playerID][square] = mix(seed);
+            }
+        }
+        for (int square = 0; square < BitBoard.SQUARES; square++) {
+            FLIP_KEYS[square] = DISC_KEYS[1][square] ^ DISC_KEYS[2][square];
+        }
+        seed += 0x9e3779b97f4a7c15L;
+        SIDE_KEY = mix(seed);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    public static long discKey(int playerID, int square) {
+        return DISC_KEYS[playerID][square];
+    }
+
+    /**
+     * Returns the change in hash from flipping every disc in the mask
+     * @param flipped
+     * @return key
+     */
+    public static long flipKey(long flipped) {
+        long key = 0L;
+        while (flipped != 0) {
+            key ^= FLIP_KEYS[Long.numberOfTrailingZeros(flipped)];
+            flipped &= flipped - 1;
+        }
+        return key;
+    }
+
+    /**
+     * Computes the hash of a position from scratch
+     * @param player1Discs
+     * @param player2Discs
+     * @param sideToMove
+     * @return hash
+     */
+    public static long hash(long player1Discs, long player2Discs, int sideToMove) {
+        long hash = sideToMove == 2 ? SIDE_KEY : 0L;
+        while (player1Discs != 0) {
+            hash ^= DISC_KEYS[1][Long.numberOfTrailingZeros(player1Discs)];
+            player1Discs &= player1Discs - 1;
+        }
+        while (player2Discs != 0) {
+            hash ^= DISC_KEYS[2][Long.numberOfTrailingZeros(player2Discs)];
+            player2Discs &= player2Discs - 1;
+        }
+        return hash;
+    }
+}